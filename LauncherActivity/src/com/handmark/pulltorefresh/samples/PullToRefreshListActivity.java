@@ -147,7 +147,7 @@ public final class PullToRefreshListActivity extends ListActivity {
 		soundListener.addSoundEvent(State.PULL_TO_REFRESH, R.raw.pull_event);
 		soundListener.addSoundEvent(State.RESET, R.raw.reset_sound);
 		soundListener.addSoundEvent(State.REFRESHING, R.raw.refreshing_sound);
-		// mPullRefreshListView.setOnPullEventListener(soundListener);
+		// mPullRefreshListView.addPullFeedbackListener(soundListener);
 
 		// You can also just use setListAdapter(mAdapter) or
 		// mPullRefreshListView.setAdapter(mAdapter)
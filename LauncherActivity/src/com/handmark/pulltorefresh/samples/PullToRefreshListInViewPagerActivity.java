@@ -1,6 +1,8 @@
 package com.handmark.pulltorefresh.samples;
 
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 
 import android.app.Activity;
 import android.content.Context;
@@ -8,19 +10,18 @@ import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.v4.view.PagerAdapter;
 import android.support.v4.view.ViewPager;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewGroup.LayoutParams;
 import android.widget.ArrayAdapter;
 import android.widget.ListAdapter;
-import android.widget.ListView;
 
-import com.handmark.pulltorefresh.library.PullToRefreshBase;
-import com.handmark.pulltorefresh.library.PullToRefreshBase.OnRefreshListener;
 import com.handmark.pulltorefresh.library.PullToRefreshListView;
+import com.handmark.pulltorefresh.library.RefreshCoordinator;
 
-public class PullToRefreshListInViewPagerActivity extends Activity implements OnRefreshListener<ListView> {
+public class PullToRefreshListInViewPagerActivity extends Activity implements RefreshCoordinator.Fetcher<Integer> {
 
 	private static final String[] STRINGS = { "Abbaye de Belloc", "Abbaye du Mont des Cats", "Abertam", "Abondance",
 			"Ackawi", "Acorn", "Adelost", "Affidelice au Chablis", "Afuega'l Pitu", "Airag", "Airedale", "Aisy Cendre",
@@ -30,13 +31,69 @@ public class PullToRefreshListInViewPagerActivity extends Activity implements On
 
 	private ViewPager mViewPager;
 
+	/**
+	 * Each page is keyed by its position, and pages nearer the current page
+	 * are warmed first
+	 */
+	private RefreshCoordinator<Integer> mRefreshCoordinator;
+
+	/**
+	 * 已创建的页面
+	 */
+	private final SparseArray<PullToRefreshListView> mPages = new SparseArray<PullToRefreshListView>();
+
+	/**
+	 * Pages which have already been warmed, so that swiping back to them
+	 * doesn't fetch them again
+	 */
+	private final HashSet<Integer> mWarmedKeys = new HashSet<Integer>();
+
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		setContentView(R.layout.activity_ptr_list_in_vp);
 
 		mViewPager = (ViewPager) findViewById(R.id.vp_list);
+		mRefreshCoordinator = new RefreshCoordinator<Integer>(this);
+		mRefreshCoordinator.setVisibleKey(mViewPager.getCurrentItem());
+		// The visible page is fetched first, and the offscreen pages wait for it
+		warm(mViewPager.getCurrentItem());
+
 		mViewPager.setAdapter(new ListViewPagerAdapter());
+		mViewPager.setOnPageChangeListener(new ViewPager.SimpleOnPageChangeListener() {
+			@Override
+			public void onPageSelected(int position) {
+				mRefreshCoordinator.setVisibleKey(position);
+
+				// Priorities are the distance from the current page
+				for (int i = 0, z = mPages.size(); i < z; i++) {
+					final int key = mPages.keyAt(i);
+					mRefreshCoordinator.register(mPages.valueAt(i), key, getPriority(key));
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return Higher for pages nearer the current page
+	 */
+	private int getPriority(int position) {
+		return -Math.abs(position - mViewPager.getCurrentItem());
+	}
+
+	/**
+	 * Fetches a page the first time it is needed
+	 */
+	private void warm(int position) {
+		if (mWarmedKeys.add(position)) {
+			mRefreshCoordinator.requestRefresh(position);
+		}
+	}
+
+	@Override
+	protected void onDestroy() {
+		mRefreshCoordinator.release();
+		super.onDestroy();
 	}
 
 	private class ListViewPagerAdapter extends PagerAdapter {
@@ -52,7 +109,14 @@ public class PullToRefreshListInViewPagerActivity extends Activity implements On
 					Arrays.asList(STRINGS));
 			plv.setAdapter(adapter);
 
-			plv.setOnRefreshListener(PullToRefreshListInViewPagerActivity.this);
+			// Refreshes go through the coordinator, which completes every list
+			// showing the same page
+			mRefreshCoordinator.register(plv, position, getPriority(position));
+			mPages.put(position, plv);
+
+			// Offscreen pages are only warmed once, and not until the visible
+			// page's fetch has completed
+			warm(position);
 
 			// Now just add ListView to ViewPager and return it
 			container.addView(plv, LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
@@ -62,6 +126,8 @@ public class PullToRefreshListInViewPagerActivity extends Activity implements On
 
 		@Override
 		public void destroyItem(ViewGroup container, int position, Object object) {
+			mRefreshCoordinator.unregister((PullToRefreshListView) object);
+			mPages.remove(position);
 			container.removeView((View) object);
 		}
 
@@ -78,16 +144,19 @@ public class PullToRefreshListInViewPagerActivity extends Activity implements On
 	}
 
 	@Override
-	public void onRefresh(PullToRefreshBase<ListView> refreshView) {
-		new GetDataTask(refreshView).execute();
+	public void fetch(RefreshCoordinator<Integer> coordinator, List<Integer> keys) {
+		// One task fetches every page in the batch
+		new GetDataTask(coordinator, keys).execute();
 	}
 
 	private static class GetDataTask extends AsyncTask<Void, Void, Void> {
 
-		PullToRefreshBase<?> mRefreshedView;
+		private final RefreshCoordinator<Integer> mCoordinator;
+		private final List<Integer> mKeys;
 
-		public GetDataTask(PullToRefreshBase<?> refreshedView) {
-			mRefreshedView = refreshedView;
+		public GetDataTask(RefreshCoordinator<Integer> coordinator, List<Integer> keys) {
+			mCoordinator = coordinator;
+			mKeys = keys;
 		}
 
 		@Override
@@ -102,7 +171,9 @@ public class PullToRefreshListInViewPagerActivity extends Activity implements On
 
 		@Override
 		protected void onPostExecute(Void result) {
-			mRefreshedView.onRefreshComplete();
+			for (int i = 0, z = mKeys.size(); i < z; i++) {
+				mCoordinator.onFetchComplete(mKeys.get(i));
+			}
 			super.onPostExecute(result);
 		}
 	}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2011, 2012 Chris Banes.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.handmark.pulltorefresh.extras.recyclerview;
+
+import android.content.Context;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+
+import com.handmark.pulltorefresh.library.OverscrollHelper;
+import com.handmark.pulltorefresh.library.PullToRefreshBase;
+
+/**
+ * RecyclerView 下拉刷新
+ * Edges are found by asking the RecyclerView whether it can scroll any
+ * further, which its LayoutManager answers from its own state, so this works
+ * with LinearLayoutManager, GridLayoutManager and StaggeredGridLayoutManager
+ * without walking the children.
+ *
+ * @author Administrator
+ *
+ */
+public class PullToRefreshRecyclerView extends PullToRefreshBase<RecyclerView> {
+
+	public PullToRefreshRecyclerView(Context context) {
+		super(context);
+	}
+
+	public PullToRefreshRecyclerView(Context context, AttributeSet attrs) {
+		super(context, attrs);
+	}
+
+	public PullToRefreshRecyclerView(Context context, Mode mode) {
+		super(context, mode);
+	}
+
+	public PullToRefreshRecyclerView(Context context, Mode mode, AnimationStyle style) {
+		super(context, mode, style);
+	}
+
+	@Override
+	public final Orientation getPullToRefreshScrollDirection() {
+		return Orientation.VERTICAL;
+	}
+
+	@Override
+	protected RecyclerView createRefreshableView(Context context, AttributeSet attrs) {
+		RecyclerView recyclerView = new InternalRecyclerView(context, attrs);
+		recyclerView.setId(R.id.recyclerview);
+		return recyclerView;
+	}
+
+	@Override
+	protected boolean isReadyForPullStart() {
+		if (isEmpty()) {
+			return true;
+		}
+		return !ViewCompat.canScrollVertically(getRefreshableView(), -1);
+	}
+
+	@Override
+	protected boolean isReadyForPullEnd() {
+		if (isEmpty()) {
+			return true;
+		}
+		return !ViewCompat.canScrollVertically(getRefreshableView(), 1);
+	}
+
+	private boolean isEmpty() {
+		final RecyclerView.Adapter<?> adapter = getRefreshableView().getAdapter();
+		return null == adapter || adapter.getItemCount() == 0 || null == getRefreshableView().getLayoutManager();
+	}
+
+	/**
+	 * Passes the scroll which the RecyclerView couldn't consume at an edge on
+	 * to {@link OverscrollHelper}, so that flinging into an edge shows the
+	 * Loading Layout in the same way as the other Views. RecyclerView reports
+	 * this through nested scrolling, for both drags and flings.
+	 */
+	final class InternalRecyclerView extends RecyclerView {
+
+		public InternalRecyclerView(Context context, AttributeSet attrs) {
+			super(context, attrs);
+		}
+
+		@Override
+		public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed,
+				int[] offsetInWindow, int type) {
+			final boolean returnValue = super.dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed,
+					dyUnconsumed, offsetInWindow, type);
+
+			// Like an AdapterView, there is no scroll range, so any unconsumed
+			// delta is past an edge
+			if (dyUnconsumed != 0) {
+				OverscrollHelper.overScrollBy(PullToRefreshRecyclerView.this, dxUnconsumed, 0, dyUnconsumed, 0,
+						type == ViewCompat.TYPE_TOUCH);
+			}
+
+			return returnValue;
+		}
+
+		@Override
+		public void onScrollStateChanged(int state) {
+			super.onScrollStateChanged(state);
+
+			// RecyclerView doesn't scroll past its edge, so nothing will
+			// scroll the Loading Layout back for us
+			if (state == SCROLL_STATE_IDLE) {
+				OverscrollHelper.onOverScrollFinished(PullToRefreshRecyclerView.this);
+			}
+		}
+	}
+}
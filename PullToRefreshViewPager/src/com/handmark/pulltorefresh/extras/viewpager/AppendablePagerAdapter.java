@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2011, 2012 Chris Banes.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.handmark.pulltorefresh.extras.viewpager;
+
+import android.support.v4.view.PagerAdapter;
+
+/**
+ * 可追加页面的适配器
+ * A PagerAdapter which pages are only ever added to the end of. ViewPager
+ * still has to be told that the count has changed, but every page it already
+ * has is reported as {@link #POSITION_UNCHANGED}, so appending pages never
+ * destroys or re-creates the pages which are already showing. Only the new
+ * pages which fall within the offscreen page limit are instantiated.
+ * <p/>
+ * Subclasses hold the page data, and call {@link #appendPages(int)} once the
+ * data for the new pages has been added.
+ *
+ * @author Administrator
+ *
+ */
+public abstract class AppendablePagerAdapter extends PagerAdapter {
+
+	private int mPageCount = 0;
+
+	/**
+	 * Set while {@link #resetPages(int)} is telling ViewPager about the change
+	 */
+	private boolean mResetting = false;
+
+	@Override
+	public final int getCount() {
+		return mPageCount;
+	}
+
+	@Override
+	public int getItemPosition(Object object) {
+		return mResetting ? POSITION_NONE : POSITION_UNCHANGED;
+	}
+
+	/**
+	 * 追加页面
+	 * Adds pages to the end, keeping the existing pages as they are.
+	 *
+	 * @param count - Number of pages which have been added to the data
+	 */
+	public final void appendPages(int count) {
+		if (count > 0) {
+			mPageCount += count;
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * 重置页面
+	 * Replaces all of the pages, so every existing page is destroyed and
+	 * created again. Use this when the data has been refreshed rather than
+	 * added to. When paging with {@link PullToRefreshViewPager}, call
+	 * {@link PullToRefreshViewPager#onPagesReset()} afterwards.
+	 *
+	 * @param count - Number of pages in the new data
+	 */
+	public final void resetPages(int count) {
+		mPageCount = Math.max(0, count);
+		mResetting = true;
+		try {
+			notifyDataSetChanged();
+		} finally {
+			mResetting = false;
+		}
+	}
+
+}
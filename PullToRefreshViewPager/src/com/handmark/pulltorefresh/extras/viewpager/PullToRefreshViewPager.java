@@ -15,15 +15,54 @@
  *******************************************************************************/
 package com.handmark.pulltorefresh.extras.viewpager;
 
+import android.annotation.TargetApi;
+import android.app.ActivityManager;
 import android.content.Context;
+import android.os.Build.VERSION;
 import android.support.v4.view.PagerAdapter;
 import android.support.v4.view.ViewPager;
 import android.util.AttributeSet;
 
 import com.handmark.pulltorefresh.library.PullToRefreshBase;
 
+/**
+ * ViewPager 下拉刷新
+ * Can also page in more pages as the end is approached, see
+ * {@link #setOnLoadPagesListener(OnLoadPagesListener)}.
+ *
+ * @author Administrator
+ *
+ */
 public class PullToRefreshViewPager extends PullToRefreshBase<ViewPager> {
 
+	/**
+	 * 每次加载的页数
+	 */
+	static final int DEFAULT_PAGES_PER_LOAD = 10;
+
+	/**
+	 * How many pages from the end more pages are loaded
+	 */
+	static final int DEFAULT_PAGE_PREFETCH_DISTANCE = 2;
+
+	/**
+	 * The memory class, in megabytes, which each extra offscreen page needs
+	 */
+	static final int MEMORY_CLASS_PER_OFFSCREEN_PAGE = 16;
+	static final int MAX_OFFSCREEN_PAGE_LIMIT = 3;
+
+	private OnLoadPagesListener mOnLoadPagesListener;
+
+	private boolean mLoadingPages;
+	/**
+	 * 开始加载时的页数
+	 */
+	private int mLoadStartPageCount;
+	private boolean mHasMorePages;
+
+	private int mPagesPerLoad = DEFAULT_PAGES_PER_LOAD;
+	private int mPagePrefetchDistance = DEFAULT_PAGE_PREFETCH_DISTANCE;
+
 	public PullToRefreshViewPager(Context context) {
 		super(context);
 	}
@@ -37,13 +76,117 @@ public class PullToRefreshViewPager extends PullToRefreshBase<ViewPager> {
 		return Orientation.HORIZONTAL;
 	}
 
+	/**
+	 * 设置分页加载监听
+	 * Turns on paging: more pages are asked for when the current page comes
+	 * within the prefetch distance of the end, or when pulling from the end
+	 * (if the Mode allows it). While paging is on, pulls from the end are
+	 * handled here and aren't passed on to the refresh listeners. The
+	 * offscreen page limit is also set from the device's memory class, so
+	 * that devices with more memory keep more pages ready. Use with an
+	 * {@link AppendablePagerAdapter} so that new pages don't re-create the
+	 * existing ones.
+	 *
+	 * @param listener - Listener, or null to turn paging off
+	 */
+	public final void setOnLoadPagesListener(OnLoadPagesListener listener) {
+		mOnLoadPagesListener = listener;
+		mLoadingPages = false;
+		mHasMorePages = null != listener;
+
+		if (null != listener) {
+			getRefreshableView().setOffscreenPageLimit(getOffscreenPageLimitForMemoryClass(getContext()));
+			checkPrefetch();
+		}
+	}
+
+	/**
+	 * 设置每次加载的页数
+	 *
+	 * @param pages - Number of pages asked for each time, the default is 10
+	 */
+	public final void setPagesPerLoad(int pages) {
+		mPagesPerLoad = Math.max(1, pages);
+	}
+
+	/**
+	 * 设置预加载距离
+	 *
+	 * @param pages - How many pages from the end more pages are loaded, 0 to
+	 *            wait for the last page. The default is 2.
+	 */
+	public final void setPagePrefetchDistance(int pages) {
+		mPagePrefetchDistance = Math.max(0, pages);
+	}
+
+	/**
+	 * @return true if a load started by the {@link OnLoadPagesListener} hasn't
+	 *         finished yet
+	 */
+	public final boolean isLoadingPages() {
+		return mLoadingPages;
+	}
+
+	/**
+	 * 分页加载完成
+	 * Call once the pages asked for by the {@link OnLoadPagesListener} have
+	 * been appended to the adapter, or the load has failed.
+	 *
+	 * @param hasMorePages - false if the end of the pages has been reached, so
+	 *            no more should be asked for
+	 */
+	public final void onLoadPagesComplete(boolean hasMorePages) {
+		mLoadingPages = false;
+		mHasMorePages = hasMorePages;
+
+		if (isRefreshing() && getCurrentMode() == Mode.PULL_FROM_END) {
+			onRefreshComplete();
+		}
+
+		// Fewer pages than the prefetch distance may have been added. Only
+		// checked when pages were, so that a listener which completes
+		// straight away without adding any doesn't loop
+		final PagerAdapter adapter = getRefreshableView().getAdapter();
+		if (null != adapter && adapter.getCount() != mLoadStartPageCount) {
+			checkPrefetch();
+		}
+	}
+
+	/**
+	 * 页面已重置
+	 * Call after all of the pages have been replaced, such as with
+	 * {@link AppendablePagerAdapter#resetPages(int)} after refreshing from
+	 * the start. Paging starts again from the new pages, even if an earlier
+	 * {@link #onLoadPagesComplete(boolean)} said that there were no more. A
+	 * load which was still running is forgotten, so any pages it brings back
+	 * should be dropped.
+	 */
+	public final void onPagesReset() {
+		mLoadingPages = false;
+		mHasMorePages = null != mOnLoadPagesListener;
+		checkPrefetch();
+	}
+
+	@Override
+	protected boolean onHandleRefresh(Mode edge) {
+		if (edge != Mode.PULL_FROM_END || null == mOnLoadPagesListener) {
+			return false;
+		}
+
+		if (mHasMorePages) {
+			loadPages();
+		} else {
+			onRefreshComplete();
+		}
+		return true;
+	}
+
 	@Override
 	protected ViewPager createRefreshableView(Context context, AttributeSet attrs) {
-		ViewPager viewPager = new ViewPager(context, attrs);
+		ViewPager viewPager = new InternalViewPager(context, attrs);
 		viewPager.setId(R.id.viewpager);
 		return viewPager;
 	}
-
 	@Override
 	protected boolean isReadyForPullStart() {
 		ViewPager refreshableView = getRefreshableView();
@@ -67,4 +210,118 @@ public class PullToRefreshViewPager extends PullToRefreshBase<ViewPager> {
 
 		return false;
 	}
+
+	private void loadPages() {
+		if (!mLoadingPages && null != mOnLoadPagesListener) {
+			final PagerAdapter adapter = getRefreshableView().getAdapter();
+			if (null != adapter) {
+				mLoadingPages = true;
+				mLoadStartPageCount = adapter.getCount();
+				mOnLoadPagesListener.onLoadPages(this, adapter.getCount(), mPagesPerLoad);
+			}
+		}
+	}
+
+	private void checkPrefetch() {
+		if (null == mOnLoadPagesListener || mLoadingPages || !mHasMorePages) {
+			return;
+		}
+
+		final PagerAdapter adapter = getRefreshableView().getAdapter();
+		if (null != adapter
+				&& getRefreshableView().getCurrentItem() >= adapter.getCount() - 1 - mPagePrefetchDistance) {
+			loadPages();
+		}
+	}
+
+	/**
+	 * Works out an offscreen page limit from how much memory the application
+	 * is allowed, from 1 on the smallest devices up to
+	 * {@link #MAX_OFFSCREEN_PAGE_LIMIT}.
+	 */
+	static int getOffscreenPageLimitForMemoryClass(Context context) {
+		if (VERSION.SDK_INT < 5) {
+			return 1;
+		}
+
+		final int memoryClass = SDK5.getMemoryClass(context);
+		return Math.max(1, Math.min(MAX_OFFSCREEN_PAGE_LIMIT, memoryClass / MEMORY_CLASS_PER_OFFSCREEN_PAGE));
+	}
+
+	/**
+	 * 分页加载监听
+	 *
+	 * @author Administrator
+	 *
+	 */
+	public static interface OnLoadPagesListener {
+
+		/**
+		 * Called when more pages are needed. Load them asynchronously, append
+		 * them to the adapter, and then call
+		 * {@link PullToRefreshViewPager#onLoadPagesComplete(boolean)}. No more
+		 * loads are asked for until then.
+		 *
+		 * @param refreshView - View which needs the pages
+		 * @param fromPosition - Position of the first page to load, the
+		 *            current page count
+		 * @param count - Number of pages to load
+		 */
+		public void onLoadPages(PullToRefreshViewPager refreshView, int fromPosition, int count);
+
+	}
+
+	/**
+	 * Watches the current page for prefetching, while still passing page
+	 * changes on to the application's listener.
+	 */
+	final class InternalViewPager extends ViewPager {
+
+		private OnPageChangeListener mOnPageChangeListener;
+
+		public InternalViewPager(Context context, AttributeSet attrs) {
+			super(context, attrs);
+
+			super.setOnPageChangeListener(new OnPageChangeListener() {
+				@Override
+				public void onPageSelected(int position) {
+					checkPrefetch();
+
+					if (null != mOnPageChangeListener) {
+						mOnPageChangeListener.onPageSelected(position);
+					}
+				}
+
+				@Override
+				public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+					if (null != mOnPageChangeListener) {
+						mOnPageChangeListener.onPageScrolled(position, positionOffset, positionOffsetPixels);
+					}
+				}
+
+				@Override
+				public void onPageScrollStateChanged(int state) {
+					if (null != mOnPageChangeListener) {
+						mOnPageChangeListener.onPageScrollStateChanged(state);
+					}
+				}
+			});
+		}
+
+		@Override
+		public void setOnPageChangeListener(OnPageChangeListener listener) {
+			// Our listener stays set, and passes the calls on
+			mOnPageChangeListener = listener;
+		}
+	}
+
+	@TargetApi(5)
+	static class SDK5 {
+
+		public static int getMemoryClass(Context context) {
+			ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+			return am.getMemoryClass();
+		}
+
+	}
 }
@@ -114,6 +114,23 @@ public interface IPullToRefresh<T extends View> {
 	 */
 	public State getState();
 
+	/**
+	 * Get the state of one edge. With concurrent refreshes enabled, one edge
+	 * can be refreshing while the other is being pulled or refreshing too.
+	 * 
+	 * @param edge - Either {@link Mode#PULL_FROM_START} or
+	 *            {@link Mode#PULL_FROM_END}
+	 * @return - The state that the edge is currently in.
+	 */
+	public State getState(Mode edge);
+
+	/**
+	 * Whether one edge can refresh while the other edge is refreshing.
+	 * 
+	 * @return true if concurrent refreshes are enabled
+	 */
+	public boolean isConcurrentRefreshEnabled();
+
 	/**
 	 * Whether Pull-to-Refresh is enabled
 	 * 
@@ -138,6 +155,16 @@ public interface IPullToRefresh<T extends View> {
 	 */
 	public boolean isRefreshing();
 
+	/**
+	 * Returns whether one edge is refreshing, which may be in the background
+	 * while the other edge is current.
+	 * 
+	 * @param edge - Either {@link Mode#PULL_FROM_START} or
+	 *            {@link Mode#PULL_FROM_END}
+	 * @return true if the edge is refreshing
+	 */
+	public boolean isRefreshing(Mode edge);
+
 	/**
 	 * Returns whether the widget has enabled scrolling on the Refreshable View
 	 * while refreshing.
@@ -152,6 +179,35 @@ public interface IPullToRefresh<T extends View> {
 	 */
 	public void onRefreshComplete();
 
+	/**
+	 * Mark the Refresh of one edge as complete. The other edge carries on as
+	 * it is. If the edge isn't refreshing, nothing happens.
+	 * 
+	 * @param edge - Either {@link Mode#PULL_FROM_START} or
+	 *            {@link Mode#PULL_FROM_END}
+	 */
+	public void onRefreshComplete(Mode edge);
+
+	/**
+	 * Returns the refresh of the current edge which is in flight. Call this
+	 * from the refresh listener, and keep it somewhere which survives
+	 * configuration changes.
+	 * 
+	 * @return The RefreshHandle, or null if the current edge isn't refreshing
+	 */
+	public RefreshHandle getRefreshHandle();
+
+	/**
+	 * Attaches a refresh which is already in flight, such as one started by
+	 * the View this one replaces after a configuration change. If it hasn't
+	 * completed, it is shown as refreshing without the refresh listeners
+	 * being called. Call this before the View's state is restored; once a
+	 * handle has been attached, the saved refreshing state is left to it.
+	 * 
+	 * @param handle - Handle from {@link #getRefreshHandle()}
+	 */
+	public void attachRefreshHandle(RefreshHandle handle);
+
 	/**
 	 * Set the Touch Events to be filtered or not. If set to true, then the View
 	 * will only use touch events where the difference in the Y-axis is greater
@@ -180,6 +236,51 @@ public interface IPullToRefresh<T extends View> {
 	 */
 	public void setOnPullEventListener(OnPullEventListener<T> listener);
 
+	/**
+	 * Adds an OnPullEventListener, which is called along with any other
+	 * listeners. Listeners with a higher priority are called first.
+	 * 
+	 * @param listener - Listener to add
+	 * @param priority - Priority of the listener, the listener set with
+	 *            {@link #setOnPullEventListener(OnPullEventListener)} has a
+	 *            priority of 0
+	 */
+	public void addOnPullEventListener(OnPullEventListener<T> listener, int priority);
+
+	/**
+	 * Removes a listener which was added or set.
+	 * 
+	 * @param listener - Listener to remove
+	 */
+	public void removeOnPullEventListener(OnPullEventListener<T> listener);
+
+	/**
+	 * Adds a listener which is told about pull events asynchronously, after
+	 * the frame in which they happened. Use this for feedback such as sounds
+	 * or vibration, so that the listener doesn't add latency to the touch
+	 * handling.
+	 * 
+	 * @param listener - Listener to add
+	 */
+	public void addPullFeedbackListener(OnPullEventListener<T> listener);
+
+	/**
+	 * Same as {@link #addPullFeedbackListener(OnPullEventListener)}, but
+	 * listeners with a higher priority are called first.
+	 * 
+	 * @param listener - Listener to add
+	 * @param priority - Priority of the listener
+	 */
+	public void addPullFeedbackListener(OnPullEventListener<T> listener, int priority);
+
+	/**
+	 * Removes a listener added with
+	 * {@link #addPullFeedbackListener(OnPullEventListener)}.
+	 * 
+	 * @param listener - Listener to remove
+	 */
+	public void removePullFeedbackListener(OnPullEventListener<T> listener);
+
 	/**
 	 * Set OnRefreshListener for the Widget
 	 * 
@@ -194,6 +295,42 @@ public interface IPullToRefresh<T extends View> {
 	 */
 	public void setOnRefreshListener(OnRefreshListener2<T> listener);
 
+	/**
+	 * Adds an OnRefreshListener, which is called along with any other refresh
+	 * listeners. Listeners with a higher priority are called first.
+	 * 
+	 * @param listener - Listener to add
+	 * @param priority - Priority of the listener, the listener set with
+	 *            {@link #setOnRefreshListener(OnRefreshListener)} has a
+	 *            priority of 0
+	 */
+	public void addOnRefreshListener(OnRefreshListener<T> listener, int priority);
+
+	/**
+	 * Adds an OnRefreshListener2, which is called along with any other
+	 * refresh listeners. Listeners with a higher priority are called first.
+	 * 
+	 * @param listener - Listener to add
+	 * @param priority - Priority of the listener, the listener set with
+	 *            {@link #setOnRefreshListener(OnRefreshListener2)} has a
+	 *            priority of 0
+	 */
+	public void addOnRefreshListener(OnRefreshListener2<T> listener, int priority);
+
+	/**
+	 * Removes a listener which was added or set.
+	 * 
+	 * @param listener - Listener to remove
+	 */
+	public void removeOnRefreshListener(OnRefreshListener<T> listener);
+
+	/**
+	 * Removes a listener which was added or set.
+	 * 
+	 * @param listener - Listener to remove
+	 */
+	public void removeOnRefreshListener(OnRefreshListener2<T> listener);
+
 	/**
 	 * Sets whether Overscroll support is enabled. This is different to
 	 * Android's standard Overscroll support (the edge-glow). This setting only
@@ -235,6 +372,18 @@ public interface IPullToRefresh<T extends View> {
 	 */
 	public void setScrollingWhileRefreshingEnabled(boolean scrollingWhileRefreshingEnabled);
 
+	/**
+	 * Lets one edge refresh while the other is refreshing, such as
+	 * refreshing from the start while more items are loaded at the end. When
+	 * the other edge is pulled, the refreshing edge carries on in the
+	 * background until {@link #onRefreshComplete(Mode)} is called for it.
+	 * Only used with {@link Mode#BOTH}. Enabling this also enables scrolling
+	 * while refreshing.
+	 * 
+	 * @param enabled - true to allow both edges to refresh at once
+	 */
+	public void setConcurrentRefreshEnabled(boolean enabled);
+
 	/**
 	 * A mutator to enable/disable whether the 'Refreshing' View should be
 	 * automatically shown when refreshing.
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright 2011, 2012 Chris Banes.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.handmark.pulltorefresh.library;
+
+/**
+ * 监听器列表
+ * A copy-on-write list of listeners, ordered by priority. Adding or removing
+ * a listener replaces the array, so dispatching is just a loop over
+ * {@link #getListeners()} with no iterator, and listeners can be added or
+ * removed while an event is being dispatched. Listeners with a higher
+ * priority are called first, and listeners with the same priority are called
+ * in the order they were added.
+ *
+ * @author Administrator
+ *
+ * @param <L>
+ */
+final class ListenerList<L> {
+
+	static final int DEFAULT_PRIORITY = 0;
+
+	private static final Object[] EMPTY_LISTENERS = new Object[0];
+	private static final int[] EMPTY_PRIORITIES = new int[0];
+
+	private Object[] mListeners = EMPTY_LISTENERS;
+	private int[] mPriorities = EMPTY_PRIORITIES;
+
+	/**
+	 * 添加监听器
+	 * Adds a listener. If it has already been added, it is moved to the
+	 * position for the new priority.
+	 *
+	 * @param listener - Listener to add
+	 * @param priority - Higher priorities are called first
+	 */
+	void add(L listener, int priority) {
+		if (null == listener) {
+			throw new IllegalArgumentException("Listener can not be null");
+		}
+		remove(listener);
+
+		final int count = mListeners.length;
+		int index = 0;
+		while (index < count && mPriorities[index] >= priority) {
+			index++;
+		}
+
+		final Object[] listeners = new Object[count + 1];
+		final int[] priorities = new int[count + 1];
+		System.arraycopy(mListeners, 0, listeners, 0, index);
+		System.arraycopy(mPriorities, 0, priorities, 0, index);
+		listeners[index] = listener;
+		priorities[index] = priority;
+		System.arraycopy(mListeners, index, listeners, index + 1, count - index);
+		System.arraycopy(mPriorities, index, priorities, index + 1, count - index);
+
+		mListeners = listeners;
+		mPriorities = priorities;
+	}
+
+	/**
+	 * 移除监听器
+	 *
+	 * @param listener - Listener to remove
+	 * @return true if the listener had been added
+	 */
+	boolean remove(L listener) {
+		final int count = mListeners.length;
+		int index = -1;
+		for (int i = 0; i < count; i++) {
+			if (mListeners[i] == listener) {
+				index = i;
+				break;
+			}
+		}
+		if (index == -1) {
+			return false;
+		}
+
+		if (count == 1) {
+			mListeners = EMPTY_LISTENERS;
+			mPriorities = EMPTY_PRIORITIES;
+			return true;
+		}
+
+		final Object[] listeners = new Object[count - 1];
+		final int[] priorities = new int[count - 1];
+		System.arraycopy(mListeners, 0, listeners, 0, index);
+		System.arraycopy(mPriorities, 0, priorities, 0, index);
+		System.arraycopy(mListeners, index + 1, listeners, index, count - index - 1);
+		System.arraycopy(mPriorities, index + 1, priorities, index, count - index - 1);
+
+		mListeners = listeners;
+		mPriorities = priorities;
+		return true;
+	}
+
+	void clear() {
+		mListeners = EMPTY_LISTENERS;
+		mPriorities = EMPTY_PRIORITIES;
+	}
+
+	boolean isEmpty() {
+		return mListeners.length == 0;
+	}
+
+	/**
+	 * @return The current listeners, in the order they should be called. The
+	 *         array is never modified, so it is safe to loop over while
+	 *         listeners are being added or removed.
+	 */
+	Object[] getListeners() {
+		return mListeners;
+	}
+
+	/**
+	 * @return The listener at the index of an array returned by
+	 *         {@link #getListeners()}
+	 */
+	@SuppressWarnings("unchecked")
+	L get(Object[] listeners, int index) {
+		return (L) listeners[index];
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.handmark.pulltorefresh.library;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+
+import com.handmark.pulltorefresh.library.PullToRefreshBase.Mode;
+import com.handmark.pulltorefresh.library.PullToRefreshBase.Orientation;
+import com.handmark.pulltorefresh.library.internal.LoadingLayout;
+
+/**
+ * 载入布局的工厂
+ * Creates the Header and Footer Loading Layouts for a Pull-to-Refresh View.
+ * Register an implementation with {@link LoadingLayoutRegistry} to make it
+ * selectable through the <var>ptrAnimationStyle</var> attr.
+ * 
+ * @author Administrator
+ * 
+ */
+public interface LoadingLayoutFactory {
+
+	/**
+	 * 创建一个动画装载布局
+	 * 
+	 * @param context - Context to create the layout with
+	 * @param mode - Either {@link Mode#PULL_FROM_START} or
+	 *            {@link Mode#PULL_FROM_END}
+	 * @param scrollDirection - Scroll direction of the Pull-to-Refresh View
+	 * @param attrs - TypedArray of PullToRefresh Attributes
+	 * @return New LoadingLayout instance
+	 */
+	public LoadingLayout createLoadingLayout(Context context, Mode mode, Orientation scrollDirection, TypedArray attrs);
+
+}
@@ -0,0 +1,116 @@
+package com.handmark.pulltorefresh.library;
+
+import android.util.Log;
+import android.util.SparseArray;
+
+import com.handmark.pulltorefresh.library.PullToRefreshBase.AnimationStyle;
+
+/**
+ * 载入布局注册表
+ * Maps Animation Style IDs to {@link LoadingLayoutFactory} instances. The
+ * built-in {@link AnimationStyle} values are registered with the same IDs
+ * used by the <var>ptrAnimationStyle</var> attr. Applications can register
+ * their own factories with any other ID and then select them from XML, e.g.
+ * <code>ptr:ptrAnimationStyle="16"</code>, or make them the default for every
+ * View created afterwards with {@link #setDefaultStyle(int)}.
+ * 
+ * @author Administrator
+ * 
+ */
+public final class LoadingLayoutRegistry {
+
+	static final String LOG_TAG = "PullToRefresh-LoadingLayoutRegistry";
+
+	private static final SparseArray<LoadingLayoutFactory> sFactories = new SparseArray<LoadingLayoutFactory>();
+
+	private static int sDefaultStyleId = AnimationStyle.getDefault().getIntValue();
+
+	static {
+		for (AnimationStyle style : AnimationStyle.values()) {
+			sFactories.put(style.getIntValue(), style);
+		}
+	}
+
+	private LoadingLayoutRegistry() {
+	}
+
+	/**
+	 * 注册一个载入布局工厂
+	 * Register a factory for the given Style ID. Any factory already registered
+	 * for the ID (including a built-in style) is replaced.
+	 * 
+	 * @param styleId - ID to register the factory with
+	 * @param factory - Factory which creates the Loading Layouts
+	 */
+	public static synchronized void register(int styleId, LoadingLayoutFactory factory) {
+		if (null == factory) {
+			throw new IllegalArgumentException("LoadingLayoutFactory can not be null");
+		}
+		sFactories.put(styleId, factory);
+	}
+
+	/**
+	 * 注销载入布局工厂
+	 * Removes the factory registered for the given Style ID. Built-in styles
+	 * are restored rather than removed.
+	 * 
+	 * @param styleId - ID to unregister
+	 */
+	public static synchronized void unregister(int styleId) {
+		sFactories.remove(styleId);
+
+		for (AnimationStyle style : AnimationStyle.values()) {
+			if (style.getIntValue() == styleId) {
+				sFactories.put(styleId, style);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @param styleId - Style ID to look up
+	 * @return The factory registered for the ID, or null if there isn't one
+	 */
+	public static synchronized LoadingLayoutFactory get(int styleId) {
+		return sFactories.get(styleId);
+	}
+
+	/**
+	 * 设置默认的动画风格
+	 * Sets the Style used by Views which do not specify one, either via XML or
+	 * their constructor. This only affects Views created afterwards.
+	 * 
+	 * @param styleId - ID of a registered Style
+	 */
+	public static synchronized void setDefaultStyle(int styleId) {
+		if (null == sFactories.get(styleId)) {
+			throw new IllegalArgumentException("No LoadingLayoutFactory registered for style: " + styleId);
+		}
+		sDefaultStyleId = styleId;
+	}
+
+	/**
+	 * @return 默认的载入布局工厂
+	 */
+	static synchronized LoadingLayoutFactory getDefault() {
+		LoadingLayoutFactory factory = sFactories.get(sDefaultStyleId);
+		return null != factory ? factory : AnimationStyle.getDefault();
+	}
+
+	/**
+	 * 根据ID返回工厂，找不到时返回默认值
+	 * 
+	 * @param styleId - Style ID, usually from the ptrAnimationStyle attr
+	 * @return The registered factory, or the default factory if none is
+	 *         registered for the ID.
+	 */
+	static synchronized LoadingLayoutFactory getOrDefault(int styleId) {
+		LoadingLayoutFactory factory = sFactories.get(styleId);
+		if (null == factory) {
+			Log.w(LOG_TAG, "No LoadingLayoutFactory registered for style: " + styleId + ", using default");
+			factory = getDefault();
+		}
+		return factory;
+	}
+
+}
@@ -103,20 +103,10 @@ public final class OverscrollHelper {
 			final int deltaY, final int scrollY, final int scrollRange, final int fuzzyThreshold,
 			final float scaleFactor, final boolean isTouchEvent) {
 
-		final int deltaValue, currentScrollValue, scrollValue;
-		switch (view.getPullToRefreshScrollDirection()) {
-			case HORIZONTAL:
-				deltaValue = deltaX;
-				scrollValue = scrollX;
-				currentScrollValue = view.getScrollX();
-				break;
-			case VERTICAL:
-			default:
-				deltaValue = deltaY;
-				scrollValue = scrollY;
-				currentScrollValue = view.getScrollY();
-				break;
-		}
+		final ScrollAxis axis = view.getScrollAxis();
+		final int deltaValue = axis.getPrimary(deltaX, deltaY);
+		final int scrollValue = axis.getPrimary(scrollX, scrollY);
+		final int currentScrollValue = axis.getScroll(view);
 
 		// Check that OverScroll is enabled and that we're not currently
 		// refreshing.
@@ -172,6 +162,21 @@ public final class OverscrollHelper {
 		}
 	}
 
+	/**
+	 * 结束越界滑动
+	 * For Views which don't overscroll themselves, so never scroll back to
+	 * their edge. Call this when the scroll which was passed to
+	 * {@link #overScrollBy(PullToRefreshBase, int, int, int, int, boolean)
+	 * overScrollBy()} has finished, to scroll the Loading Layout back.
+	 * 
+	 * @param view - PullToRefreshView that is calling this.
+	 */
+	public static void onOverScrollFinished(final PullToRefreshBase<?> view) {
+		if (State.OVERSCROLLING == view.getState()) {
+			view.setState(State.RESET);
+		}
+	}
+
 	static boolean isAndroidOverScrollEnabled(View view) {
 		return view.getOverScrollMode() != View.OVER_SCROLL_NEVER;
 	}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright 2011, 2012 Chris Banes.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.handmark.pulltorefresh.library;
+
+import android.util.Log;
+import android.view.View;
+
+import com.handmark.pulltorefresh.library.PullToRefreshBase.Mode;
+import com.handmark.pulltorefresh.library.PullToRefreshBase.OnPullEventListener;
+import com.handmark.pulltorefresh.library.PullToRefreshBase.State;
+
+/**
+ * 下拉事件分发器
+ * Queues Pull Events in a small ring buffer and delivers them to the feedback
+ * listeners once the current frame has been handled, so that sounds,
+ * vibration or analytics never run inside the touch path.
+ * <p/>
+ * Only used from the UI thread.
+ *
+ * @author Administrator
+ *
+ * @param <V>
+ */
+final class PullEventDispatcher<V extends View> implements Runnable {
+
+	static final String LOG_TAG = "PullToRefresh-PullEventDispatcher";
+
+	/**
+	 * More events than this in one frame means the oldest are dropped
+	 */
+	static final int QUEUE_CAPACITY = 8;
+
+	private final PullToRefreshBase<V> mView;
+	private final ListenerList<OnPullEventListener<V>> mListeners = new ListenerList<OnPullEventListener<V>>();
+
+	private final State[] mQueuedStates = new State[QUEUE_CAPACITY];
+	private final Mode[] mQueuedModes = new Mode[QUEUE_CAPACITY];
+	private int mQueueHead = 0;
+	private int mQueueSize = 0;
+
+	private boolean mScheduled = false;
+
+	PullEventDispatcher(PullToRefreshBase<V> view) {
+		mView = view;
+	}
+
+	void addListener(OnPullEventListener<V> listener, int priority) {
+		mListeners.add(listener, priority);
+	}
+
+	void removeListener(OnPullEventListener<V> listener) {
+		mListeners.remove(listener);
+	}
+
+	boolean hasListeners() {
+		return !mListeners.isEmpty();
+	}
+
+	/**
+	 * 加入事件队列
+	 * Queues an event, and schedules delivery if it hasn't been already.
+	 */
+	void dispatch(State state, Mode mode) {
+		if (mListeners.isEmpty()) {
+			return;
+		}
+
+		if (mQueueSize == QUEUE_CAPACITY) {
+			if (PullToRefreshBase.DEBUG) {
+				Log.d(LOG_TAG, "Queue full, dropping event: " + mQueuedStates[mQueueHead]);
+			}
+			mQueueHead = (mQueueHead + 1) % QUEUE_CAPACITY;
+			mQueueSize--;
+		}
+
+		final int tail = (mQueueHead + mQueueSize) % QUEUE_CAPACITY;
+		mQueuedStates[tail] = state;
+		mQueuedModes[tail] = mode;
+		mQueueSize++;
+
+		if (!mScheduled) {
+			mScheduled = true;
+			// A plain post runs after the frame currently being handled has
+			// been drawn
+			mView.post(this);
+		}
+	}
+
+	/**
+	 * Drops any queued events without delivering them.
+	 */
+	void cancel() {
+		if (mScheduled) {
+			mView.removeCallbacks(this);
+			mScheduled = false;
+		}
+		while (mQueueSize > 0) {
+			mQueuedStates[mQueueHead] = null;
+			mQueuedModes[mQueueHead] = null;
+			mQueueHead = (mQueueHead + 1) % QUEUE_CAPACITY;
+			mQueueSize--;
+		}
+		mQueueHead = 0;
+	}
+
+	@Override
+	public void run() {
+		mScheduled = false;
+
+		while (mQueueSize > 0) {
+			final State state = mQueuedStates[mQueueHead];
+			final Mode mode = mQueuedModes[mQueueHead];
+			mQueuedStates[mQueueHead] = null;
+			mQueuedModes[mQueueHead] = null;
+			mQueueHead = (mQueueHead + 1) % QUEUE_CAPACITY;
+			mQueueSize--;
+
+			final Object[] listeners = mListeners.getListeners();
+			for (int i = 0, z = listeners.length; i < z; i++) {
+				mListeners.get(listeners, i).onPullEvent(mView, state, mode);
+			}
+		}
+	}
+
+}
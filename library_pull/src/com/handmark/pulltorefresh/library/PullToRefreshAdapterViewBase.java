@@ -17,6 +17,7 @@ package com.handmark.pulltorefresh.library;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.Gravity;
@@ -33,7 +34,8 @@ import android.widget.LinearLayout;
 import android.widget.ListAdapter;
 
 import com.handmark.pulltorefresh.library.internal.EmptyViewMethodAccessor;
-import com.handmark.pulltorefresh.library.internal.IndicatorLayout;
+import com.handmark.pulltorefresh.library.internal.IndicatorOverlay;
+import com.handmark.pulltorefresh.library.internal.ViewCompat;
 
 /**
  * Listview 父类
@@ -77,17 +79,37 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 	private OnLastItemVisibleListener mOnLastItemVisibleListener;
 	private View mEmptyView;
    /**
-    * 顶部指示器
+    * 顶部指示器, created once and then kept for mode changes
     */
-	private IndicatorLayout mIndicatorIvTop;
+	private IndicatorOverlay mIndicatorTop;
 	/**
 	 * 底部指示器
 	 */
-	private IndicatorLayout mIndicatorIvBottom;
+	private IndicatorOverlay mIndicatorBottom;
+
+	/**
+	 * Whether each indicator is used with the current mode
+	 */
+	private boolean mIndicatorTopEnabled, mIndicatorBottomEnabled;
      /**
       * 是否显示指示器
       */
 	private boolean mShowIndicator;
+
+	/**
+	 * 缓存的边缘状态
+	 * Whether the list was at the start/end edge the last time it was checked.
+	 * The indicators are only updated when one of these changes.
+	 */
+	private boolean mAtStartEdge, mAtEndEdge;
+
+	private boolean mIndicatorUpdatePending;
+
+	/**
+	 * Created when first needed, as the indicators can be set up by the
+	 * super constructor before our field initializers have run
+	 */
+	private Runnable mIndicatorUpdateRunnable;
 	
 	private boolean mScrollEmptyView = true;
 
@@ -164,12 +186,15 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 		 * zero-based index, so we minus one totalItemCount to check
 		 */
 		if (null != mOnLastItemVisibleListener) {
-			mLastItemVisible = (totalItemCount > 0) && (firstVisibleItem + visibleItemCount >= totalItemCount - 1);
+			mLastItemVisible = isLastItemReached(firstVisibleItem, visibleItemCount, totalItemCount);
 		}
 
-		// If we're showing the indicator, check positions...
+		onRefreshableViewScroll(firstVisibleItem, visibleItemCount, totalItemCount);
+
+		// If we're showing the indicator, check whether we've reached or left
+		// an edge
 		if (getShowIndicatorInternal()) {
-			updateIndicatorViewsVisibility();
+			updateEdgeState(firstVisibleItem, visibleItemCount, totalItemCount);
 		}
 
 		// Finally call OnScrollListener if we have one
@@ -225,8 +250,6 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 	 * @param newEmptyView - Empty View to be used
 	 */
 	public final void setEmptyView(View newEmptyView) {
-		FrameLayout refreshableViewWrapper = getRefreshableViewWrapper();
-
 		if (null != newEmptyView) {
 			// New view needs to be clickable so that Android recognizes it as a
 			// target for Touch Events
@@ -237,13 +260,13 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 				((ViewGroup) newEmptyViewParent).removeView(newEmptyView);
 			}
 
-			// We need to convert any LayoutParams so that it works in our
-			// FrameLayout
+			// We need to convert any LayoutParams so that it is laid out over
+			// the Refreshable View
 			FrameLayout.LayoutParams lp = convertEmptyViewLayoutParams(newEmptyView.getLayoutParams());
 			if (null != lp) {
-				refreshableViewWrapper.addView(newEmptyView, lp);
+				addViewInternal(newEmptyView, lp);
 			} else {
-				refreshableViewWrapper.addView(newEmptyView);
+				addViewInternal(newEmptyView, generateDefaultLayoutParams());
 			}
 		}
 
@@ -315,10 +338,14 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 		if (getShowIndicatorInternal()) {
 			switch (getCurrentMode()) {
 				case PULL_FROM_END:
-					mIndicatorIvBottom.pullToRefresh();
+					if (mIndicatorBottomEnabled) {
+						mIndicatorBottom.pullToRefresh();
+					}
 					break;
 				case PULL_FROM_START:
-					mIndicatorIvTop.pullToRefresh();
+					if (mIndicatorTopEnabled) {
+						mIndicatorTop.pullToRefresh();
+					}
 					break;
 				default:
 					// NO-OP
@@ -336,7 +363,7 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 		super.onRefreshing(doScroll);
 
 		if (getShowIndicatorInternal()) {
-			updateIndicatorViewsVisibility();
+			refreshEdgeState();
 		}
 	}
 
@@ -351,10 +378,14 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 		if (getShowIndicatorInternal()) {
 			switch (getCurrentMode()) {
 				case PULL_FROM_END:
-					mIndicatorIvBottom.releaseToRefresh();
+					if (mIndicatorBottomEnabled) {
+						mIndicatorBottom.releaseToRefresh();
+					}
 					break;
 				case PULL_FROM_START:
-					mIndicatorIvTop.releaseToRefresh();
+					if (mIndicatorTopEnabled) {
+						mIndicatorTop.releaseToRefresh();
+					}
 					break;
 				default:
 					// NO-OP
@@ -371,7 +402,7 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 		super.onReset();
 
 		if (getShowIndicatorInternal()) {
-			updateIndicatorViewsVisibility();
+			refreshEdgeState();
 		}
 	}
 
@@ -381,6 +412,41 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 		mShowIndicator = a.getBoolean(R.styleable.PullToRefresh_ptrShowIndicator, !isPullToRefreshOverScrollEnabled());
 	}
 
+	/**
+	 * 是否滑动到了最后一个条目
+	 * Called from {@link #onScroll(AbsListView, int, int, int)} to decide
+	 * whether the {@link OnLastItemVisibleListener} should be called when
+	 * scrolling stops.
+	 * 
+	 * @return true if the last item is visible
+	 */
+	protected boolean isLastItemReached(int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+		return (totalItemCount > 0)
+				&& (firstVisibleItem + visibleItemCount >= totalItemCount - getEdgePositionAllowance());
+	}
+
+	/**
+	 * 边缘位置的容差
+	 * How many positions from the first or last item still count as being
+	 * at that edge, to allow for header or footer Views which the
+	 * derivative class adds to the Refreshable View itself. The position
+	 * checks are always followed by a check of the child View's bounds.
+	 * 
+	 * @return Number of positions, 1 by default
+	 */
+	protected int getEdgePositionAllowance() {
+		return 1;
+	}
+
+	/**
+	 * 滑动回调
+	 * Called from {@link #onScroll(AbsListView, int, int, int)}, before the
+	 * OnScrollListener, so that derivative classes can react to scrolling
+	 * without replacing the listener.
+	 */
+	protected void onRefreshableViewScroll(int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+	}
+
 	protected boolean isReadyForPullStart() {
 		return isFirstItemVisible();
 	}
@@ -389,6 +455,25 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 		return isLastItemVisible();
 	}
 
+	@Override
+	protected void onDetachedFromWindow() {
+		if (mIndicatorUpdatePending) {
+			removeCallbacks(mIndicatorUpdateRunnable);
+			mIndicatorUpdatePending = false;
+		}
+		super.onDetachedFromWindow();
+	}
+
+	@Override
+	protected void onDrawOverRefreshableView(Canvas canvas, int width, int height) {
+		if (mIndicatorTopEnabled) {
+			mIndicatorTop.draw(canvas, width, height);
+		}
+		if (mIndicatorBottomEnabled) {
+			mIndicatorBottom.draw(canvas, width, height);
+		}
+	}
+
 	@Override
 	protected void onScrollChanged(int l, int t, int oldl, int oldt) {
 		super.onScrollChanged(l, t, oldl, oldt);
@@ -417,40 +502,38 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 
 	/**
 	 * 添加指示器
+	 * Enables the indicators used by the current mode. The indicators are only
+	 * created the first time they are needed, so mode changes don't allocate.
 	 */
 	private void addIndicatorViews() { 
 		Mode mode = getMode();
-		FrameLayout refreshableViewWrapper = getRefreshableViewWrapper();
-
-		if (mode.showHeaderLoadingLayout() && null == mIndicatorIvTop) {
-			// If the mode can pull down, and we don't have one set already
-			mIndicatorIvTop = new IndicatorLayout(getContext(), Mode.PULL_FROM_START);
-			FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
-					ViewGroup.LayoutParams.WRAP_CONTENT);
-			params.rightMargin = getResources().getDimensionPixelSize(R.dimen.indicator_right_padding);
-			params.gravity = Gravity.TOP | Gravity.RIGHT;
-			refreshableViewWrapper.addView(mIndicatorIvTop, params);
-
-		} else if (!mode.showHeaderLoadingLayout() && null != mIndicatorIvTop) {
-			// If we can't pull down, but have a View then remove it
-			refreshableViewWrapper.removeView(mIndicatorIvTop);
-			mIndicatorIvTop = null;
+		final boolean topEnabled = mode.showHeaderLoadingLayout();
+		final boolean bottomEnabled = mode.showFooterLoadingLayout();
+
+		if (topEnabled == mIndicatorTopEnabled && bottomEnabled == mIndicatorBottomEnabled) {
+			return;
 		}
 
-		if (mode.showFooterLoadingLayout() && null == mIndicatorIvBottom) {
-			// If the mode can pull down, and we don't have one set already
-			mIndicatorIvBottom = new IndicatorLayout(getContext(), Mode.PULL_FROM_END);
-			FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
-					ViewGroup.LayoutParams.WRAP_CONTENT);
-			params.rightMargin = getResources().getDimensionPixelSize(R.dimen.indicator_right_padding);
-			params.gravity = Gravity.BOTTOM | Gravity.RIGHT;
-			refreshableViewWrapper.addView(mIndicatorIvBottom, params);
-
-		} else if (!mode.showFooterLoadingLayout() && null != mIndicatorIvBottom) {
-			// If we can't pull down, but have a View then remove it
-			refreshableViewWrapper.removeView(mIndicatorIvBottom);
-			mIndicatorIvBottom = null;
+		if (topEnabled && !mIndicatorTopEnabled) {
+			if (null == mIndicatorTop) {
+				mIndicatorTop = new IndicatorOverlay(this, Mode.PULL_FROM_START);
+			}
+			mIndicatorTop.reset();
+		}
+		if (bottomEnabled && !mIndicatorBottomEnabled) {
+			if (null == mIndicatorBottom) {
+				mIndicatorBottom = new IndicatorOverlay(this, Mode.PULL_FROM_END);
+			}
+			mIndicatorBottom.reset();
 		}
+
+		mIndicatorTopEnabled = topEnabled;
+		mIndicatorBottomEnabled = bottomEnabled;
+		invalidate();
+
+		// Newly enabled indicators start visible, so bring them in line with
+		// the list
+		refreshEdgeState();
 	}
 
 	private boolean getShowIndicatorInternal() {
@@ -476,14 +559,14 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 			/**
 			 * This check should really just be:
 			 * mRefreshableView.getFirstVisiblePosition() == 0, but PtRListView
-			 * internally use a HeaderView which messes the positions up. For
-			 * now we'll just add one to account for it and rely on the inner
-			 * condition which checks getTop().
+			 * can internally use a HeaderView which messes the positions up. We
+			 * allow for it and rely on the inner condition which checks
+			 * getTop().
 			 */
-			if (mRefreshableView.getFirstVisiblePosition() <= 1) {
+			if (mRefreshableView.getFirstVisiblePosition() <= getEdgePositionAllowance()) {
 				final View firstVisibleChild = mRefreshableView.getChildAt(0);
 				if (firstVisibleChild != null) {
-					return firstVisibleChild.getTop() >= mRefreshableView.getTop();
+					return firstVisibleChild.getTop() >= mRefreshableView.getListPaddingTop();
 				}
 			}
 		}
@@ -515,16 +598,16 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 
 			/**
 			 * This check should really just be: lastVisiblePosition ==
-			 * lastItemPosition, but PtRListView internally uses a FooterView
-			 * which messes the positions up. For me we'll just subtract one to
-			 * account for it and rely on the inner condition which checks
-			 * getBottom().
+			 * lastItemPosition, but PtRListView can internally use a
+			 * FooterView which messes the positions up. We allow for it and
+			 * rely on the inner condition which checks getBottom().
 			 */
-			if (lastVisiblePosition >= lastItemPosition - 1) {
+			if (lastVisiblePosition >= lastItemPosition - getEdgePositionAllowance()) {
 				final int childIndex = lastVisiblePosition - mRefreshableView.getFirstVisiblePosition();
 				final View lastVisibleChild = mRefreshableView.getChildAt(childIndex);
 				if (lastVisibleChild != null) {
-					return lastVisibleChild.getBottom() <= mRefreshableView.getBottom();
+					return lastVisibleChild.getBottom() <= mRefreshableView.getHeight()
+							- mRefreshableView.getListPaddingBottom();
 				}
 			}
 		}
@@ -536,14 +619,64 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 	 * 移除指示器
 	 */
 	private void removeIndicatorViews() {
-		if (null != mIndicatorIvTop) {
-			getRefreshableViewWrapper().removeView(mIndicatorIvTop);
-			mIndicatorIvTop = null;
+		if (mIndicatorTopEnabled || mIndicatorBottomEnabled) {
+			mIndicatorTopEnabled = mIndicatorBottomEnabled = false;
+			invalidate();
+		}
+
+		mAtStartEdge = mAtEndEdge = false;
+	}
+
+	/**
+	 * 更新边缘状态
+	 * Updates the cached edge state from the values given to
+	 * {@link #onScroll(AbsListView, int, int, int)}. The child Views are only
+	 * looked at when the positions say that we're near an edge, and the
+	 * indicators are only updated when the state changes.
+	 */
+	private void updateEdgeState(int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+		// The same allowance for the PtRListView header and footer as in
+		// isFirstItemVisible() and isLastItemVisible()
+		final int allowance = getEdgePositionAllowance();
+		final boolean atStart = mIndicatorTopEnabled && firstVisibleItem <= allowance && isReadyForPullStart();
+		final boolean atEnd = mIndicatorBottomEnabled
+				&& firstVisibleItem + visibleItemCount >= totalItemCount - allowance && isReadyForPullEnd();
+
+		if (atStart != mAtStartEdge || atEnd != mAtEndEdge) {
+			mAtStartEdge = atStart;
+			mAtEndEdge = atEnd;
+			scheduleIndicatorUpdate();
 		}
+	}
+
+	/**
+	 * Recomputes the edge state from the list itself, and updates the
+	 * indicators even if it hasn't changed. Used when the refresh state
+	 * changes.
+	 */
+	private void refreshEdgeState() {
+		mAtStartEdge = mIndicatorTopEnabled && isReadyForPullStart();
+		mAtEndEdge = mIndicatorBottomEnabled && isReadyForPullEnd();
+		scheduleIndicatorUpdate();
+	}
 
-		if (null != mIndicatorIvBottom) {
-			getRefreshableViewWrapper().removeView(mIndicatorIvBottom);
-			mIndicatorIvBottom = null;
+	/**
+	 * Updates the indicators on the next frame, so that however many edge
+	 * changes happen within a frame they are shown or hidden at most once.
+	 */
+	private void scheduleIndicatorUpdate() {
+		if (!mIndicatorUpdatePending) {
+			if (null == mIndicatorUpdateRunnable) {
+				mIndicatorUpdateRunnable = new Runnable() {
+					@Override
+					public void run() {
+						mIndicatorUpdatePending = false;
+						updateIndicatorViewsVisibility();
+					}
+				};
+			}
+			mIndicatorUpdatePending = true;
+			ViewCompat.postOnAnimation(this, mIndicatorUpdateRunnable);
 		}
 	}
 
@@ -551,28 +684,21 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView> extend
 	 * 更新指示器状态
 	 */
 	private void updateIndicatorViewsVisibility() {
-		
-		if (null != mIndicatorIvTop) {
-			if (!isRefreshing() && isReadyForPullStart()) {
-				if (!mIndicatorIvTop.isVisible()) {
-					mIndicatorIvTop.show();
-				}
+		final boolean refreshing = isRefreshing();
+
+		if (mIndicatorTopEnabled) {
+			if (!refreshing && mAtStartEdge) {
+				mIndicatorTop.show();
 			} else {
-				if (mIndicatorIvTop.isVisible()) {
-					mIndicatorIvTop.hide();
-				}
+				mIndicatorTop.hide();
 			}
 		}
 
-		if (null != mIndicatorIvBottom) {
-			if (!isRefreshing() && isReadyForPullEnd()) {
-				if (!mIndicatorIvBottom.isVisible()) {
-					mIndicatorIvBottom.show();
-				}
+		if (mIndicatorBottomEnabled) {
+			if (!refreshing && mAtEndEdge) {
+				mIndicatorBottom.show();
 			} else {
-				if (mIndicatorIvBottom.isVisible()) {
-					mIndicatorIvBottom.hide();
-				}
+				mIndicatorBottom.hide();
 			}
 		}
 	}
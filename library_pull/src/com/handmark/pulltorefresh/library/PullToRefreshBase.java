@@ -17,6 +17,8 @@ package com.handmark.pulltorefresh.library;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.os.Build.VERSION;
 import android.os.Build.VERSION_CODES;
@@ -32,22 +34,30 @@ import android.view.ViewGroup;
 import android.view.animation.DecelerateInterpolator;
 import android.view.animation.Interpolator;
 import android.widget.FrameLayout;
-import android.widget.LinearLayout;
 
+import com.handmark.pulltorefresh.library.internal.CanvasLoadingLayout;
 import com.handmark.pulltorefresh.library.internal.FlipLoadingLayout;
 import com.handmark.pulltorefresh.library.internal.FrameLoadingLayout;
+import com.handmark.pulltorefresh.library.internal.FrameSequenceLoadingLayout;
 import com.handmark.pulltorefresh.library.internal.LoadingLayout;
 import com.handmark.pulltorefresh.library.internal.RotateLoadingLayout;
 import com.handmark.pulltorefresh.library.internal.Utils;
 import com.handmark.pulltorefresh.library.internal.ViewCompat;
 
-public abstract class PullToRefreshBase<T extends View> extends LinearLayout implements IPullToRefresh<T> {
+public abstract class PullToRefreshBase<T extends View> extends ViewGroup implements IPullToRefresh<T> {
 
 	// ===========================================================
 	// Constants
 	// ===========================================================
 
 	static final boolean DEBUG = true;
+
+	/**
+	 * 每次拉动事件的日志
+	 * Logs every state change and header scroll. These build a String per
+	 * pull event, so they are kept off even when {@link #DEBUG} is on.
+	 */
+	static final boolean DEBUG_EVENTS = false;
     /**
      * 是否使用硬件加速
      */
@@ -120,6 +130,34 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
       * 
       */
 	private Mode mCurrentMode;
+	/**
+	 * 是否允许两端同时刷新
+	 */
+	private boolean mConcurrentRefreshEnabled = false;
+	/**
+	 * 后台刷新的一端
+	 * The edge which carries on refreshing while the other edge is pulled, and
+	 * its state. Null when only one edge is in use.
+	 */
+	private Mode mBackgroundRefreshMode;
+	private State mBackgroundRefreshState;
+	/**
+	 * 正在进行的刷新
+	 * Handles for the refresh of the current edge, and of the background
+	 * edge. Null when the edge isn't refreshing.
+	 */
+	private RefreshHandle mRefreshHandle;
+	private RefreshHandle mBackgroundRefreshHandle;
+	/**
+	 * Set when a refresh which is already running has been attached, so that
+	 * showing it doesn't call the refresh listeners again
+	 */
+	private boolean mRefreshHandleReattached = false;
+	/**
+	 * Set once any handle has been attached, so that restoring the saved
+	 * state leaves the refresh to it
+	 */
+	private boolean mRefreshHandleAttached = false;
 	/**
 	 * 被刷新的组件
 	 */
@@ -127,7 +165,6 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	/**
 	 * 刷新视图包装View
 	 */
-	private FrameLayout mRefreshableViewWrapper;
    /**
     * 刷新时是否展示
     */
@@ -148,14 +185,29 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 * 加载中的View 是否能见
 	 */
 	private boolean mLayoutVisibilityChangesEnabled = true;
+	/**
+	 * 是否合并触摸事件，每帧只处理一次下拉
+	 */
+	private boolean mCoalesceTouchEvents = false;
+	/**
+	 * 载入布局只占内容的大小
+	 */
+	private boolean mCompactLoadingLayouts = false;
+
+	private final Rect mTmpContainerRect = new Rect();
+	private final Rect mTmpChildRect = new Rect();
+	/**
+	 * 是否已经提交了下一帧的下拉事件
+	 */
+	private boolean mPullEventPending = false;
     /**
      * 插入器
      */
 	private Interpolator mScrollAnimationInterpolator;
 	/**
-	 * 默认动画风格  默认为旋转
+	 * 载入布局工厂，默认从 {@link LoadingLayoutRegistry} 中获取
 	 */
-	private AnimationStyle mLoadingAnimationStyle = AnimationStyle.getDefault();
+	private LoadingLayoutFactory mLoadingLayoutFactory;
     /**
      * 载入时头部的View
      */
@@ -168,19 +220,54 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	/**
 	 * 刷新事件监听
 	 */
-	private OnRefreshListener<T> mOnRefreshListener;
+	private final ListenerList<OnRefreshListener<T>> mOnRefreshListeners = new ListenerList<OnRefreshListener<T>>();
 	/**
 	 * 双向刷新事件监听
 	 */
-	private OnRefreshListener2<T> mOnRefreshListener2;
+	private final ListenerList<OnRefreshListener2<T>> mOnRefreshListeners2 = new ListenerList<OnRefreshListener2<T>>();
 	/**
 	 * 刷新事件监听 播放音乐等
 	 */
+	private final ListenerList<OnPullEventListener<T>> mOnPullEventListeners = new ListenerList<OnPullEventListener<T>>();
+	/**
+	 * 通过set方法设置的监听器, 再次设置时替换
+	 */
+	private OnRefreshListener<T> mOnRefreshListener;
+	private OnRefreshListener2<T> mOnRefreshListener2;
 	private OnPullEventListener<T> mOnPullEventListener;
 	/**
-	 * 滑动时的线程
+	 * 异步的反馈事件分发 声音 震动等
+	 */
+	private final PullEventDispatcher<T> mPullEventDispatcher = new PullEventDispatcher<T>(this);
+	/**
+	 * 滑动方向, 在 init 中确定
+	 */
+	private ScrollAxis mScrollAxis;
+	/**
+	 * 滑动时的线程, 重复使用
 	 */
 	private SmoothScrollRunnable mCurrentSmoothScrollRunnable;
+	/**
+	 * 滑动结束后回调刷新监听
+	 */
+	private final OnSmoothScrollFinishedListener mCallRefreshListenerOnScrollFinished = new OnSmoothScrollFinishedListener() {
+		@Override
+		public void onSmoothScrollFinished() {
+			callRefreshListener();
+		}
+	};
+	/**
+	 * 合并后的下拉事件，每帧执行一次
+	 */
+	private final Runnable mPullEventRunnable = new Runnable() {
+		@Override
+		public void run() {
+			mPullEventPending = false;
+			if (mIsBeingDragged) {
+				pullEvent();
+			}
+		}
+	};
 
 	// ===========================================================
 	// Constructors
@@ -226,7 +313,20 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		
 		super(context);
 		mMode = mode;
-		mLoadingAnimationStyle = animStyle;
+		mLoadingLayoutFactory = animStyle;
+		init(context, null);
+	}
+
+	/**
+	 * 构造
+	 * @param context
+	 * @param mode
+	 * @param factory - Factory used to create the Loading Layouts
+	 */
+	public PullToRefreshBase(Context context, Mode mode, LoadingLayoutFactory factory) {
+		super(context);
+		mMode = mode;
+		mLoadingLayoutFactory = factory;
 		init(context, null);
 	}
 
@@ -327,6 +427,26 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		return mState;
 	}
 
+	/**
+	 * 某一端的状态
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#getState(com.handmark.pulltorefresh.library.PullToRefreshBase.Mode)
+	 */
+	@Override
+	public final State getState(Mode edge) {
+		if (edge == mBackgroundRefreshMode) {
+			return mBackgroundRefreshState;
+		}
+		return edge == mCurrentMode ? mState : State.RESET;
+	}
+
+	/**
+	 * 是否允许两端同时刷新
+	 */
+	@Override
+	public final boolean isConcurrentRefreshEnabled() {
+		return mConcurrentRefreshEnabled;
+	}
+
 	/**
 	 * 刷新时是否禁止滚动
 	 * @deprecated See {@link #isScrollingWhileRefreshingEnabled()}.
@@ -360,6 +480,18 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		return mState == State.REFRESHING || mState == State.MANUAL_REFRESHING;
 	}
 
+	/**
+	 * 某一端是否在刷新
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#isRefreshing(com.handmark.pulltorefresh.library.PullToRefreshBase.Mode)
+	 */
+	@Override
+	public final boolean isRefreshing(Mode edge) {
+		if (edge == mBackgroundRefreshMode) {
+			return true;
+		}
+		return edge == mCurrentMode && isRefreshing();
+	}
+
 	/**
 	 * 是否启用滚动并刷新
 	 */
@@ -398,37 +530,29 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 
 				if (isReadyForPull()) {
 					final float y = event.getY(), x = event.getX();
-					final float diff, oppositeDiff, absDiff;
 
 					// We need to use the correct values, based on scroll
 					// direction
-					switch (getPullToRefreshScrollDirection()) {
-						case HORIZONTAL:
-							diff = x - mLastMotionX;
-							oppositeDiff = y - mLastMotionY;
-							break;
-						case VERTICAL:
-						default:
-							diff = y - mLastMotionY;
-							oppositeDiff = x - mLastMotionX;
-							break;
-					}
-					absDiff = Math.abs(diff);
+					final float diff = mScrollAxis.getPrimary(x - mLastMotionX, y - mLastMotionY);
+					final float oppositeDiff = mScrollAxis.getSecondary(x - mLastMotionX, y - mLastMotionY);
+					final float absDiff = Math.abs(diff);
 
 					if (absDiff > mTouchSlop && (!mFilterTouchEvents || absDiff > Math.abs(oppositeDiff))) {
-						if (mMode.showHeaderLoadingLayout() && diff >= 1f && isReadyForPullStart()) {
+						if (mMode.showHeaderLoadingLayout() && diff >= 1f
+								&& mBackgroundRefreshMode != Mode.PULL_FROM_START && isReadyForPullStart()) {
 							mLastMotionY = y;
 							mLastMotionX = x;
 							mIsBeingDragged = true;
 							if (mMode == Mode.BOTH) {
-								mCurrentMode = Mode.PULL_FROM_START;
+								switchCurrentMode(Mode.PULL_FROM_START);
 							}
-						} else if (mMode.showFooterLoadingLayout() && diff <= -1f && isReadyForPullEnd()) {
+						} else if (mMode.showFooterLoadingLayout() && diff <= -1f
+								&& mBackgroundRefreshMode != Mode.PULL_FROM_END && isReadyForPullEnd()) {
 							mLastMotionY = y;
 							mLastMotionX = x;
 							mIsBeingDragged = true;
 							if (mMode == Mode.BOTH) {
-								mCurrentMode = Mode.PULL_FROM_END;
+								switchCurrentMode(Mode.PULL_FROM_END);
 							}
 						}
 					}
@@ -453,8 +577,80 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 */
 	@Override
 	public final void onRefreshComplete() {
+		if (null != mBackgroundRefreshMode) {
+			onRefreshComplete(mBackgroundRefreshMode);
+		}
 		if (isRefreshing()) {
+			onRefreshComplete(mCurrentMode);
+		}
+	}
+
+	/**
+	 * 某一端刷新完成时
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#onRefreshComplete(com.handmark.pulltorefresh.library.PullToRefreshBase.Mode)
+	 */
+	@Override
+	public final void onRefreshComplete(Mode edge) {
+		final RefreshHandle handle;
+		if (edge == mBackgroundRefreshMode) {
+			handle = mBackgroundRefreshHandle;
+			mBackgroundRefreshHandle = null;
+			mBackgroundRefreshMode = null;
+			mBackgroundRefreshState = null;
+			onBackgroundRefreshComplete(edge);
+		} else if (edge == mCurrentMode && isRefreshing()) {
+			handle = mRefreshHandle;
+			mRefreshHandle = null;
 			setState(State.RESET);
+		} else {
+			return;
+		}
+
+		// If the refresh has since been attached to another View, such as
+		// after a configuration change, that one is completed too
+		if (null != handle) {
+			handle.complete();
+		}
+	}
+
+	/**
+	 * 获取正在进行的刷新
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#getRefreshHandle()
+	 */
+	@Override
+	public final RefreshHandle getRefreshHandle() {
+		return mRefreshHandle;
+	}
+
+	/**
+	 * 重新挂载正在进行的刷新
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#attachRefreshHandle(com.handmark.pulltorefresh.library.RefreshHandle)
+	 */
+	@Override
+	public final void attachRefreshHandle(RefreshHandle handle) {
+		if (null == handle) {
+			throw new IllegalArgumentException("RefreshHandle can not be null");
+		}
+
+		mRefreshHandleAttached = true;
+		if (handle.isComplete() || isRefreshing()) {
+			return;
+		}
+
+		handle.attach(this);
+		mRefreshHandle = handle;
+		mRefreshHandleReattached = true;
+		mCurrentMode = handle.getEdge();
+		setState(handle.getState(), true);
+	}
+
+	/**
+	 * Called by {@link RefreshHandle#complete()} on the View it is attached
+	 * to.
+	 */
+	final void onRefreshHandleComplete(RefreshHandle handle) {
+		if (handle == mBackgroundRefreshHandle || handle == mRefreshHandle) {
+			onRefreshComplete(handle.getEdge());
 		}
 	}
 
@@ -483,7 +679,11 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 				if (mIsBeingDragged) {
 					mLastMotionY = event.getY();
 					mLastMotionX = event.getX();
-					pullEvent();
+					if (mCoalesceTouchEvents) {
+						schedulePullEvent();
+					} else {
+						pullEvent();
+					}
 					return true;
 				}
 				break;
@@ -501,10 +701,12 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 			case MotionEvent.ACTION_CANCEL:
 			case MotionEvent.ACTION_UP: {
 				if (mIsBeingDragged) {
+					// Apply the last recorded position before deciding what
+					// to do with the release
+					flushPendingPullEvent();
 					mIsBeingDragged = false;
 
-					if (mState == State.RELEASE_TO_REFRESH
-							&& (null != mOnRefreshListener || null != mOnRefreshListener2)) {
+					if (mState == State.RELEASE_TO_REFRESH && hasRefreshListeners()) {
 						setState(State.REFRESHING, true);
 						return true;
 					}
@@ -528,6 +730,60 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		return false;
 	}
 
+	/**
+	 * 载入布局是否只占内容的大小
+	 * 
+	 * @return true if the Loading Layouts are sized to their content
+	 */
+	public final boolean isCompactLoadingLayoutsEnabled() {
+		return mCompactLoadingLayouts;
+	}
+
+	/**
+	 * 设置载入布局只占内容的大小
+	 * By default the Loading Layouts are sized to a little more than the
+	 * maximum pull distance, which is more than half of this View, so both are
+	 * measured and laid out at that size. When enabled they are sized to their
+	 * content instead, and pulling further than that just moves them along
+	 * with the Refreshable View, leaving this View's background showing
+	 * behind them.
+	 * 
+	 * @param compact - true to size the Loading Layouts to their content
+	 */
+	public final void setCompactLoadingLayoutsEnabled(boolean compact) {
+		if (mCompactLoadingLayouts != compact) {
+			mCompactLoadingLayouts = compact;
+			refreshLoadingViewsSize();
+		}
+	}
+
+	/**
+	 * 是否合并触摸事件
+	 * 
+	 * @return true if MOVE events are coalesced so that the pull is only
+	 *         applied once per frame
+	 */
+	public final boolean isTouchEventCoalescingEnabled() {
+		return mCoalesceTouchEvents;
+	}
+
+	/**
+	 * 设置是否合并触摸事件
+	 * By default every MOVE event scrolls the Loading Layout and updates the
+	 * state straight away. On high frequency touch screens that means several
+	 * scroll/layout updates per displayed frame. When enabled, MOVE events only
+	 * record the latest position, and the pull is applied once on the next
+	 * animation frame.
+	 * 
+	 * @param coalesce - true to only apply the pull once per frame
+	 */
+	public final void setTouchEventCoalescingEnabled(boolean coalesce) {
+		mCoalesceTouchEvents = coalesce;
+		if (!coalesce) {
+			flushPendingPullEvent();
+		}
+	}
+
 	/**
 	 * 设置刷新时是否启用滚动
 	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#setScrollingWhileRefreshingEnabled(boolean)
@@ -536,6 +792,19 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		mScrollingWhileRefreshingEnabled = allowScrollingWhileRefreshing;
 	}
 
+	/**
+	 * 设置是否允许两端同时刷新
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#setConcurrentRefreshEnabled(boolean)
+	 */
+	@Override
+	public final void setConcurrentRefreshEnabled(boolean enabled) {
+		mConcurrentRefreshEnabled = enabled;
+		if (enabled) {
+			// The other edge can't be pulled unless the View can scroll to it
+			mScrollingWhileRefreshingEnabled = true;
+		}
+	}
+
 	/**
 	 * 刷新时是否滚动
 	 * @deprecated See {@link #setScrollingWhileRefreshingEnabled(boolean)}
@@ -612,7 +881,60 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#setOnPullEventListener(com.handmark.pulltorefresh.library.PullToRefreshBase.OnPullEventListener)
 	 */
 	public void setOnPullEventListener(OnPullEventListener<T> listener) {
+		if (null != mOnPullEventListener) {
+			mOnPullEventListeners.remove(mOnPullEventListener);
+		}
 		mOnPullEventListener = listener;
+		if (null != listener) {
+			mOnPullEventListeners.add(listener, ListenerList.DEFAULT_PRIORITY);
+		}
+	}
+
+	/**
+	 * 添加事件监听
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#addOnPullEventListener(com.handmark.pulltorefresh.library.PullToRefreshBase.OnPullEventListener, int)
+	 */
+	@Override
+	public final void addOnPullEventListener(OnPullEventListener<T> listener, int priority) {
+		mOnPullEventListeners.add(listener, priority);
+	}
+
+	/**
+	 * 移除事件监听
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#removeOnPullEventListener(com.handmark.pulltorefresh.library.PullToRefreshBase.OnPullEventListener)
+	 */
+	@Override
+	public final void removeOnPullEventListener(OnPullEventListener<T> listener) {
+		if (mOnPullEventListeners.remove(listener) && listener == mOnPullEventListener) {
+			mOnPullEventListener = null;
+		}
+	}
+
+	/**
+	 * 添加反馈监听
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#addPullFeedbackListener(com.handmark.pulltorefresh.library.PullToRefreshBase.OnPullEventListener)
+	 */
+	@Override
+	public final void addPullFeedbackListener(OnPullEventListener<T> listener) {
+		mPullEventDispatcher.addListener(listener, ListenerList.DEFAULT_PRIORITY);
+	}
+
+	/**
+	 * 添加反馈监听
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#addPullFeedbackListener(com.handmark.pulltorefresh.library.PullToRefreshBase.OnPullEventListener, int)
+	 */
+	@Override
+	public final void addPullFeedbackListener(OnPullEventListener<T> listener, int priority) {
+		mPullEventDispatcher.addListener(listener, priority);
+	}
+
+	/**
+	 * 移除反馈监听
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#removePullFeedbackListener(com.handmark.pulltorefresh.library.PullToRefreshBase.OnPullEventListener)
+	 */
+	@Override
+	public final void removePullFeedbackListener(OnPullEventListener<T> listener) {
+		mPullEventDispatcher.removeListener(listener);
 	}
 
 	/**
@@ -621,8 +943,11 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 */
 	@Override
 	public final void setOnRefreshListener(OnRefreshListener<T> listener) {
+		clearSetRefreshListeners();
 		mOnRefreshListener = listener;
-		mOnRefreshListener2 = null;
+		if (null != listener) {
+			mOnRefreshListeners.add(listener, ListenerList.DEFAULT_PRIORITY);
+		}
 	}
 
 	/**
@@ -631,8 +956,60 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 */
 	@Override
 	public final void setOnRefreshListener(OnRefreshListener2<T> listener) {
+		clearSetRefreshListeners();
 		mOnRefreshListener2 = listener;
-		mOnRefreshListener = null;
+		if (null != listener) {
+			mOnRefreshListeners2.add(listener, ListenerList.DEFAULT_PRIORITY);
+		}
+	}
+
+	/**
+	 * 添加下拉监听器
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#addOnRefreshListener(com.handmark.pulltorefresh.library.PullToRefreshBase.OnRefreshListener, int)
+	 */
+	@Override
+	public final void addOnRefreshListener(OnRefreshListener<T> listener, int priority) {
+		mOnRefreshListeners.add(listener, priority);
+	}
+
+	/**
+	 * 添加加载更多监听器
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#addOnRefreshListener(com.handmark.pulltorefresh.library.PullToRefreshBase.OnRefreshListener2, int)
+	 */
+	@Override
+	public final void addOnRefreshListener(OnRefreshListener2<T> listener, int priority) {
+		mOnRefreshListeners2.add(listener, priority);
+	}
+
+	/**
+	 * 移除下拉监听器
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#removeOnRefreshListener(com.handmark.pulltorefresh.library.PullToRefreshBase.OnRefreshListener)
+	 */
+	@Override
+	public final void removeOnRefreshListener(OnRefreshListener<T> listener) {
+		if (mOnRefreshListeners.remove(listener) && listener == mOnRefreshListener) {
+			mOnRefreshListener = null;
+		}
+	}
+
+	/**
+	 * 移除加载更多监听器
+	 * @see com.handmark.pulltorefresh.library.IPullToRefresh#removeOnRefreshListener(com.handmark.pulltorefresh.library.PullToRefreshBase.OnRefreshListener2)
+	 */
+	@Override
+	public final void removeOnRefreshListener(OnRefreshListener2<T> listener) {
+		if (mOnRefreshListeners2.remove(listener) && listener == mOnRefreshListener2) {
+			mOnRefreshListener2 = null;
+		}
+	}
+
+	/**
+	 * 是否有刷新监听器
+	 * @return true if at least one OnRefreshListener or OnRefreshListener2 has
+	 *         been set or added
+	 */
+	public final boolean hasRefreshListeners() {
+		return !mOnRefreshListeners.isEmpty() || !mOnRefreshListeners2.isEmpty();
 	}
 
 	/**
@@ -745,20 +1122,50 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 */
 	public abstract Orientation getPullToRefreshScrollDirection();
 
+	/**
+	 * @return The axis resolved from
+	 *         {@link #getPullToRefreshScrollDirection()} when the View was
+	 *         created
+	 */
+	final ScrollAxis getScrollAxis() {
+		return mScrollAxis;
+	}
+
 	/**
 	 * 设置状态
 	 * @param state
-	 * @param params
 	 */
-	final void setState(State state, final boolean... params) {
-		
+	final void setState(State state) {
+		setState(state, false);
+	}
+
+	/**
+	 * 设置状态
+	 * Moves to a new state, if {@link State#canMoveTo(State)} allows it, and
+	 * calls its hook and the listeners. Unless {@link #DEBUG_EVENTS} is on,
+	 * nothing is allocated for a legal change, so this is safe to call for
+	 * every pull event.
+	 * 
+	 * @param state - State to move to
+	 * @param doScroll - Whether the UI should scroll, only used for
+	 *            {@link State#REFRESHING} and {@link State#MANUAL_REFRESHING}
+	 */
+	final void setState(State state, boolean doScroll) {
+		if (!mState.canMoveTo(state)) {
+			Log.w(LOG_TAG, "Ignoring illegal state change: " + mState.name() + " -> " + state.name());
+			return;
+		}
+
 		mState = state;
-		if (DEBUG) {
+		if (DEBUG_EVENTS) {
 			Log.d(LOG_TAG, "State: " + mState.name());
 		}
 
 		switch (mState) {
 			case RESET:
+				// A refresh which is reset without completing is given up on
+				mRefreshHandle = null;
+				mRefreshHandleReattached = false;
 				onReset();
 				break;
 			case PULL_TO_REFRESH:
@@ -769,16 +1176,24 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 				break;
 			case REFRESHING:
 			case MANUAL_REFRESHING:
-				onRefreshing(params[0]);
+				onRefreshing(doScroll);
 				break;
 			case OVERSCROLLING:
 				// NO-OP
 				break;
 		}
 
-		// Call OnPullEventListener
-		if (null != mOnPullEventListener) {
-			mOnPullEventListener.onPullEvent(this, mState, mCurrentMode);
+		// Call OnPullEventListeners
+		final Object[] listeners = mOnPullEventListeners.getListeners();
+		for (int i = 0, z = listeners.length; i < z; i++) {
+			mOnPullEventListeners.get(listeners, i).onPullEvent(this, mState, mCurrentMode);
+		}
+
+		// Feedback listeners get the event after this frame
+		mPullEventDispatcher.dispatch(mState, mCurrentMode);
+
+		if (mState == State.RESET && null != mBackgroundRefreshMode) {
+			resumeBackgroundRefresh();
 		}
 	}
 
@@ -808,7 +1223,7 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 * @return
 	 */
 	protected LoadingLayout createLoadingLayout(Context context, Mode mode, TypedArray attrs) {
-		LoadingLayout layout = mLoadingAnimationStyle.createLoadingLayout(context, mode,
+		LoadingLayout layout = mLoadingLayoutFactory.createLoadingLayout(context, mode,
 				getPullToRefreshScrollDirection(), attrs);
 		layout.setVisibility(View.INVISIBLE);
 		return layout;
@@ -905,15 +1320,6 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		return SMOOTH_SCROLL_LONG_DURATION_MS;
 	}
 
-	/**
-	 * 获到 刷新内容装载View
-	 * @return
-	 */
-	protected FrameLayout getRefreshableViewWrapper() {
-		
-		return mRefreshableViewWrapper;
-	}
-
 	/**
 	 * Allows Derivative classes to handle the XML Attrs without creating a
 	 * TypedArray themsevles
@@ -943,6 +1349,16 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 */
 	protected abstract boolean isReadyForPullStart();
 
+	@Override
+	protected void onDetachedFromWindow() {
+		if (mPullEventPending) {
+			removeCallbacks(mPullEventRunnable);
+			mPullEventPending = false;
+		}
+		mPullEventDispatcher.cancel();
+		super.onDetachedFromWindow();
+	}
+
 	/**
 	 * Called by {@link #onRestoreInstanceState(Parcelable)} so that derivative
 	 * classes can handle their saved instance state.
@@ -961,6 +1377,20 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	protected void onPtrSaveInstanceState(Bundle saveState) {
 	}
 
+	/**
+	 * 在刷新内容上绘制
+	 * Called after the Refreshable View has been drawn, so that derivative
+	 * classes can draw overlays such as indicators on top of it without
+	 * adding Views. The canvas is translated to the Refreshable View's
+	 * position and clipped to its bounds. Invalidate this View to redraw.
+	 * 
+	 * @param canvas - Canvas, in the Refreshable View's coordinates
+	 * @param width - Width of the Refreshable View
+	 * @param height - Height of the Refreshable View
+	 */
+	protected void onDrawOverRefreshableView(Canvas canvas, int width, int height) {
+	}
+
 	/**
 	 * 开始刷新
 	 * Called when the UI has been to be updated to be in the
@@ -999,21 +1429,14 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 			if (mShowViewWhileRefreshing) {
 
 				// Call Refresh Listener when the Scroll has finished
-				OnSmoothScrollFinishedListener listener = new OnSmoothScrollFinishedListener() {
-					@Override
-					public void onSmoothScrollFinished() {
-						callRefreshListener();
-					}
-				};
-
 				switch (mCurrentMode) {
 					case MANUAL_REFRESH_ONLY:
 					case PULL_FROM_END:
-						smoothScrollTo(getFooterSize(), listener);
+						smoothScrollTo(getFooterSize(), mCallRefreshListenerOnScrollFinished);
 						break;
 					default:
 					case PULL_FROM_START:
-						smoothScrollTo(-getHeaderSize(), listener);
+						smoothScrollTo(-getHeaderSize(), mCallRefreshListenerOnScrollFinished);
 						break;
 				}
 			} else {
@@ -1025,6 +1448,19 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		}
 	}
 
+	/**
+	 * 处理刷新
+	 * Called when a refresh starts, before the refresh listeners are called.
+	 * Subclasses which refresh an edge themselves can handle it here, and the
+	 * listeners then aren't told about it.
+	 *
+	 * @param edge - Edge which is refreshing
+	 * @return true if the refresh has been handled
+	 */
+	protected boolean onHandleRefresh(Mode edge) {
+		return false;
+	}
+
 	/**
 	 * 释放刷新
 	 * Called when the UI has been to be updated to be in the
@@ -1060,6 +1496,41 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		smoothScrollTo(0);
 	}
 
+	/**
+	 * 后台刷新完成
+	 * Called when an edge which carried on refreshing while the other edge was
+	 * pulled has completed. The current edge's state is left alone.
+	 * 
+	 * @param edge - Edge which has completed
+	 */
+	protected void onBackgroundRefreshComplete(Mode edge) {
+		if (edge == Mode.PULL_FROM_END) {
+			mFooterLayout.reset();
+		} else {
+			mHeaderLayout.reset();
+		}
+	}
+
+	/**
+	 * 恢复后台刷新
+	 * Called when the current edge has reset while the other edge is still
+	 * refreshing, which then becomes the current edge again. The refresh
+	 * listeners have already been called for it, so aren't called again.
+	 * 
+	 * @param edge - Edge which is refreshing
+	 */
+	protected void onBackgroundRefreshResumed(Mode edge) {
+		if (edge == Mode.PULL_FROM_END) {
+			mFooterLayout.refreshing();
+		} else {
+			mHeaderLayout.refreshing();
+		}
+
+		if (mShowViewWhileRefreshing) {
+			smoothScrollTo(edge == Mode.PULL_FROM_END ? getFooterSize() : -getHeaderSize());
+		}
+	}
+
 	/**
 	 * 恢复状态
 	 * @see android.view.View#onRestoreInstanceState(android.os.Parcelable)
@@ -1079,8 +1550,11 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 			// Let super Restore Itself
 			super.onRestoreInstanceState(bundle.getParcelable(STATE_SUPER));
 
+			// Without a RefreshHandle the running refresh has been lost, so it
+			// is started again. With one, it has already been reattached, or
+			// has finished
 			State viewState = State.mapIntToValue(bundle.getInt(STATE_STATE, 0));
-			if (viewState == State.REFRESHING || viewState == State.MANUAL_REFRESHING) {
+			if ((viewState == State.REFRESHING || viewState == State.MANUAL_REFRESHING) && !mRefreshHandleAttached) {
 				setState(viewState, true);
 			}
 
@@ -1116,108 +1590,187 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	}
 
 	/**
-	 * 尺寸改变时
+	 * 绘制子View
+	 * The Loading Layouts are only ever partly revealed while pulling, so
+	 * each is clipped to the strip of it which is inside this View's visible
+	 * area, and not drawn at all when none of it is.
 	 */
 	@Override
-	protected final void onSizeChanged(int w, int h, int oldw, int oldh) {
-		if (DEBUG) {
-			Log.d(LOG_TAG, String.format("onSizeChanged. W: %d, H: %d", w, h));
+	protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+		if (child != mHeaderLayout && child != mFooterLayout) {
+			return super.drawChild(canvas, child, drawingTime);
+		}
+
+		// The canvas is already scrolled, so the visible area starts at the
+		// scroll position
+		final int scrollX = getScrollX(), scrollY = getScrollY();
+		final int left = Math.max(child.getLeft(), scrollX);
+		final int top = Math.max(child.getTop(), scrollY);
+		final int right = Math.min(child.getRight(), scrollX + getWidth());
+		final int bottom = Math.min(child.getBottom(), scrollY + getHeight());
+
+		if (right <= left || bottom <= top) {
+			return false;
 		}
 
-		super.onSizeChanged(w, h, oldw, oldh);
+		final int saveCount = canvas.save();
+		canvas.clipRect(left, top, right, bottom);
+		final boolean more = super.drawChild(canvas, child, drawingTime);
+		canvas.restoreToCount(saveCount);
+		return more;
+	}
 
-		// We need to update the header/footer when our size changes
-		refreshLoadingViewsSize();
+	@Override
+	protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+		return p instanceof FrameLayout.LayoutParams;
+	}
 
-		// Update the Refreshable View layout
-		refreshRefreshableViewSize(w, h);
+	@Override
+	protected FrameLayout.LayoutParams generateDefaultLayoutParams() {
+		return new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+	}
 
-		/**
-		 * As we're currently in a Layout Pass, we need to schedule another one
-		 * to layout any changes we've made here
-		 */
-		post(new Runnable() {
-			@Override
-			public void run() {
-				requestLayout();
-			}
-		});
+	@Override
+	public FrameLayout.LayoutParams generateLayoutParams(AttributeSet attrs) {
+		return new FrameLayout.LayoutParams(getContext(), attrs);
+	}
+
+	@Override
+	protected FrameLayout.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+		return new FrameLayout.LayoutParams(p);
 	}
 
 	/**
-	 * 重新测量刷新载入View的大小
-	 * Re-measure the Loading Views height, and adjust internal padding as
-	 * necessary
+	 * 测量
+	 * The Refreshable View fills the content area, inside any padding. Other
+	 * children, such as an Empty View, are measured like a FrameLayout would.
+	 * The Loading Layouts fill the content across the pull direction, and
+	 * along it are sized to beyond the maximum pull, or to their content in
+	 * compact mode.
 	 */
-	protected final void refreshLoadingViewsSize() {
-		final int maximumPullScroll = (int) (getMaximumPullScroll() * 1.2f);
-
-		int pLeft = getPaddingLeft();
-		int pTop = getPaddingTop();
-		int pRight = getPaddingRight();
-		int pBottom = getPaddingBottom();
-
-		switch (getPullToRefreshScrollDirection()) {
-			case HORIZONTAL:
-				if (mMode.showHeaderLoadingLayout()) {
-					mHeaderLayout.setWidth(maximumPullScroll);
-					pLeft = -maximumPullScroll;
-				} else {
-					pLeft = 0;
-				}
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		final int paddingWidth = getPaddingLeft() + getPaddingRight();
+		final int paddingHeight = getPaddingTop() + getPaddingBottom();
+
+		// The Refreshable View fills the content area whatever its
+		// LayoutParams say, and is only measured once. When this View wraps
+		// its content, that measure also decides the content size
+		final MarginLayoutParams contentLp = (MarginLayoutParams) mRefreshableView.getLayoutParams();
+		mRefreshableView.measure(getChildMeasureSpec(widthMeasureSpec, paddingWidth + contentLp.leftMargin
+				+ contentLp.rightMargin, ViewGroup.LayoutParams.MATCH_PARENT), getChildMeasureSpec(heightMeasureSpec,
+				paddingHeight + contentLp.topMargin + contentLp.bottomMargin, ViewGroup.LayoutParams.MATCH_PARENT));
+		int maxWidth = mRefreshableView.getMeasuredWidth() + contentLp.leftMargin + contentLp.rightMargin;
+		int maxHeight = mRefreshableView.getMeasuredHeight() + contentLp.topMargin + contentLp.bottomMargin;
+
+		for (int i = 0, z = getChildCount(); i < z; i++) {
+			final View child = getChildAt(i);
+			if (child == mRefreshableView || child == mHeaderLayout || child == mFooterLayout
+					|| child.getVisibility() == View.GONE) {
+				continue;
+			}
 
-				if (mMode.showFooterLoadingLayout()) {
-					mFooterLayout.setWidth(maximumPullScroll);
-					pRight = -maximumPullScroll;
-				} else {
-					pRight = 0;
-				}
-				break;
+			if (!isChildMeasuredSeparately(child)) {
+				measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, 0);
+			}
+			final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+			maxWidth = Math.max(maxWidth, child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+			maxHeight = Math.max(maxHeight, child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+		}
 
-			case VERTICAL:
-				if (mMode.showHeaderLoadingLayout()) {
-					mHeaderLayout.setHeight(maximumPullScroll);
-					pTop = -maximumPullScroll;
-				} else {
-					pTop = 0;
-				}
+		maxWidth = Math.max(maxWidth + paddingWidth, getSuggestedMinimumWidth());
+		maxHeight = Math.max(maxHeight + paddingHeight, getSuggestedMinimumHeight());
+		setMeasuredDimension(resolveSize(maxWidth, widthMeasureSpec), resolveSize(maxHeight, heightMeasureSpec));
 
-				if (mMode.showFooterLoadingLayout()) {
-					mFooterLayout.setHeight(maximumPullScroll);
-					pBottom = -maximumPullScroll;
-				} else {
-					pBottom = 0;
-				}
-				break;
-		}
+		final int contentWidth = Math.max(0, getMeasuredWidth() - paddingWidth);
+		final int contentHeight = Math.max(0, getMeasuredHeight() - paddingHeight);
 
-		if (DEBUG) {
-			Log.d(LOG_TAG, String.format("Setting Padding. L: %d, T: %d, R: %d, B: %d", pLeft, pTop, pRight, pBottom));
+		final int loadingLayoutSize = mCompactLoadingLayouts ? -1 : (int) (Math.round(mScrollAxis.getPrimary(
+				getMeasuredWidth(), getMeasuredHeight()) / FRICTION) * 1.2f);
+		if (mHeaderLayout.getVisibility() != View.GONE) {
+			mScrollAxis.measureLoadingLayout(mHeaderLayout, contentWidth, contentHeight, loadingLayoutSize);
+		}
+		if (mFooterLayout.getVisibility() != View.GONE) {
+			mScrollAxis.measureLoadingLayout(mFooterLayout, contentWidth, contentHeight, loadingLayoutSize);
 		}
-		setPadding(pLeft, pTop, pRight, pBottom);
 	}
 
-	protected final void refreshRefreshableViewSize(int width, int height) {
-		// We need to set the Height of the Refreshable View to the same as
-		// this layout
-		LinearLayout.LayoutParams lp = (LinearLayout.LayoutParams) mRefreshableViewWrapper.getLayoutParams();
+	/**
+	 * @param child - Child added with
+	 *            {@link #addViewInternal(View, ViewGroup.LayoutParams)}
+	 * @return true if a subclass has already measured the child before
+	 *         calling super.onMeasure(), so it isn't measured again
+	 */
+	protected boolean isChildMeasuredSeparately(View child) {
+		return false;
+	}
 
-		switch (getPullToRefreshScrollDirection()) {
-			case HORIZONTAL:
-				if (lp.width != width) {
-					lp.width = width;
-					mRefreshableViewWrapper.requestLayout();
-				}
-				break;
-			case VERTICAL:
-				if (lp.height != height) {
-					lp.height = height;
-					mRefreshableViewWrapper.requestLayout();
-				}
-				break;
+	/**
+	 * 布局
+	 * The Header sits just before the content area and the Footer just after
+	 * it, so that they are outside of this View's bounds until it is
+	 * scrolled. Other children are placed within the content area by their
+	 * gravity.
+	 */
+	@Override
+	protected void onLayout(boolean changed, int l, int t, int r, int b) {
+		final int left = getPaddingLeft();
+		final int top = getPaddingTop();
+		final int right = r - l - getPaddingRight();
+		final int bottom = b - t - getPaddingBottom();
+
+		for (int i = 0, z = getChildCount(); i < z; i++) {
+			final View child = getChildAt(i);
+			if (child.getVisibility() == View.GONE) {
+				continue;
+			}
+
+			if (child == mHeaderLayout) {
+				mScrollAxis.layoutBefore(child, left, top, right, bottom);
+			} else if (child == mFooterLayout) {
+				mScrollAxis.layoutAfter(child, left, top, right, bottom);
+			} else {
+				layoutInContent(child, left, top, right, bottom);
+			}
 		}
 	}
 
+	private void layoutInContent(View child, int left, int top, int right, int bottom) {
+		final FrameLayout.LayoutParams lp = (FrameLayout.LayoutParams) child.getLayoutParams();
+		final int gravity = lp.gravity != -1 ? lp.gravity : Gravity.TOP | Gravity.LEFT;
+
+		mTmpContainerRect.set(left + lp.leftMargin, top + lp.topMargin, right - lp.rightMargin, bottom
+				- lp.bottomMargin);
+		Gravity.apply(gravity, child.getMeasuredWidth(), child.getMeasuredHeight(), mTmpContainerRect, mTmpChildRect);
+		child.layout(mTmpChildRect.left, mTmpChildRect.top, mTmpChildRect.right, mTmpChildRect.bottom);
+	}
+
+	/**
+	 * 绘制覆盖层
+	 * Draws the overlay over the Refreshable View once every child has been
+	 * drawn.
+	 */
+	@Override
+	protected void dispatchDraw(Canvas canvas) {
+		super.dispatchDraw(canvas);
+
+		final View refreshableView = mRefreshableView;
+		final int saveCount = canvas.save();
+		canvas.translate(refreshableView.getLeft(), refreshableView.getTop());
+		canvas.clipRect(0, 0, refreshableView.getWidth(), refreshableView.getHeight());
+		onDrawOverRefreshableView(canvas, refreshableView.getWidth(), refreshableView.getHeight());
+		canvas.restoreToCount(saveCount);
+	}
+
+	/**
+	 * 重新测量刷新载入View的大小
+	 * Re-measure the Loading Views, which are sized during
+	 * {@link #onMeasure(int, int)}
+	 */
+	protected final void refreshLoadingViewsSize() {
+		requestLayout();
+	}
+
 	/**
 	 * 设置头部滑动
 	 * Helper method which just calls scrollTo() in the correct scrolling
@@ -1226,7 +1779,7 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 * @param value - New Scroll value
 	 */
 	protected final void setHeaderScroll(int value) {
-		if (DEBUG) {
+		if (DEBUG_EVENTS) {
 			Log.d(LOG_TAG, "setHeaderScroll: " + value);
 		}
 
@@ -1236,12 +1789,12 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 
 		if (mLayoutVisibilityChangesEnabled) {
 			if (value < 0) {
-				mHeaderLayout.setVisibility(View.VISIBLE);
+				setLoadingLayoutVisibility(mHeaderLayout, View.VISIBLE);
 			} else if (value > 0) {
-				mFooterLayout.setVisibility(View.VISIBLE);
+				setLoadingLayoutVisibility(mFooterLayout, View.VISIBLE);
 			} else {
-				mHeaderLayout.setVisibility(View.INVISIBLE);
-				mFooterLayout.setVisibility(View.INVISIBLE);
+				setLoadingLayoutVisibility(mHeaderLayout, View.INVISIBLE);
+				setLoadingLayoutVisibility(mFooterLayout, View.INVISIBLE);
 			}
 		}
 
@@ -1251,18 +1804,11 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 			 * all. We don't use them on the Header/Footer Views as they change
 			 * often, which would negate any HW layer performance boost.
 			 */
-			ViewCompat.setLayerType(mRefreshableViewWrapper, value != 0 ? View.LAYER_TYPE_HARDWARE
+			ViewCompat.setLayerType(mRefreshableView, value != 0 ? View.LAYER_TYPE_HARDWARE
 					: View.LAYER_TYPE_NONE);
 		}
 
-		switch (getPullToRefreshScrollDirection()) {
-			case VERTICAL:
-				scrollTo(0, value);
-				break;
-			case HORIZONTAL:
-				scrollTo(value, 0);
-				break;
-		}
+		mScrollAxis.scrollTo(this, value);
 	}
 
 	/**
@@ -1299,39 +1845,42 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	/**
 	 * 改变 刷新模式
 	 * 
-	 * Updates the View State when the mode has been set. This does not do any
-	 * checking that the mode is different to current state so always updates.
+	 * Updates the View State when the mode has been set. The Loading Layouts
+	 * are always children of this View, so a Mode change only detaches the
+	 * ones it doesn't use by making them {@link View#GONE}. Nothing is laid
+	 * out again unless one of them is attached or detached.
 	 */
 	protected void updateUIForMode() {
-		
-		// We need to use the correct LayoutParam values, based on scroll
-		// direction
-		final LinearLayout.LayoutParams lp = getLoadingLayoutLayoutParams();
-
-		// Remove Header, and then add Header Loading View again if needed
-		if (this == mHeaderLayout.getParent()) {
-			removeView(mHeaderLayout);
-		}
-		if (mMode.showHeaderLoadingLayout()) {
-			addViewInternal(mHeaderLayout, 0, lp);
-		}
-
-		// Remove Footer, and then add Footer Loading View again if needed
-		if (this == mFooterLayout.getParent()) {
-			removeView(mFooterLayout);
-		}
-		if (mMode.showFooterLoadingLayout()) {
-			addViewInternal(mFooterLayout, lp);
-		}
-
-		// Hide Loading Views
-		refreshLoadingViewsSize();
+		setLoadingLayoutAttached(mHeaderLayout, mMode.showHeaderLoadingLayout());
+		setLoadingLayoutAttached(mFooterLayout, mMode.showFooterLoadingLayout());
 
 		// If we're not using Mode.BOTH, set mCurrentMode to mMode, otherwise
 		// set it to pull down
 		mCurrentMode = (mMode != Mode.BOTH) ? mMode : Mode.PULL_FROM_START;
 	}
 
+	/**
+	 * 挂载或卸载载入布局
+	 * Only a change between {@link View#GONE} and not requests a layout, so
+	 * this does nothing when the layout is already in the right state.
+	 */
+	private void setLoadingLayoutAttached(LoadingLayout layout, boolean attached) {
+		if (!attached) {
+			layout.setVisibility(View.GONE);
+		} else if (layout.getVisibility() == View.GONE) {
+			layout.setVisibility(mLayoutVisibilityChangesEnabled ? View.INVISIBLE : View.VISIBLE);
+		}
+	}
+
+	/**
+	 * Shows or hides an attached Loading Layout, leaving detached ones alone.
+	 */
+	private static void setLoadingLayoutVisibility(LoadingLayout layout, int visibility) {
+		if (layout.getVisibility() != View.GONE) {
+			layout.setVisibility(visibility);
+		}
+	}
+
 	/**
 	 * 添加刷新的View
 	 * @param context
@@ -1339,30 +1888,95 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 */
 	private void addRefreshableView(Context context, T refreshableView) {
 		
-		mRefreshableViewWrapper = new FrameLayout(context);
-		mRefreshableViewWrapper.addView(refreshableView, ViewGroup.LayoutParams.MATCH_PARENT,
-				ViewGroup.LayoutParams.MATCH_PARENT);
-
-		addViewInternal(mRefreshableViewWrapper, new LinearLayout.LayoutParams(LayoutParams.MATCH_PARENT,
-				LayoutParams.MATCH_PARENT));
+		addViewInternal(refreshableView, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+				ViewGroup.LayoutParams.MATCH_PARENT));
 	}
 
 	/**
 	 * 刷新监听
 	 */
+	/**
+	 * 切换当前的一端
+	 * Makes the other edge current when a pull starts from it. If the current
+	 * edge is refreshing and concurrent refreshes are enabled, it carries on
+	 * in the background and the new edge starts from {@link State#RESET}.
+	 */
+	private void switchCurrentMode(Mode edge) {
+		if (edge == mCurrentMode) {
+			return;
+		}
+
+		if (mConcurrentRefreshEnabled && isRefreshing() && null == mBackgroundRefreshMode) {
+			mBackgroundRefreshMode = mCurrentMode;
+			mBackgroundRefreshState = mState;
+			mBackgroundRefreshHandle = mRefreshHandle;
+			mRefreshHandle = null;
+			// Set directly, as nothing should happen to the edge which is
+			// still refreshing
+			mState = State.RESET;
+		}
+		mCurrentMode = edge;
+	}
+
+	/**
+	 * Makes the edge which was refreshing in the background current again.
+	 */
+	private void resumeBackgroundRefresh() {
+		final Mode edge = mBackgroundRefreshMode;
+		mCurrentMode = edge;
+		mState = mBackgroundRefreshState;
+		mBackgroundRefreshMode = null;
+		mBackgroundRefreshState = null;
+		mRefreshHandle = mBackgroundRefreshHandle;
+		mBackgroundRefreshHandle = null;
+
+		onBackgroundRefreshResumed(edge);
+	}
+
 	private void callRefreshListener() {
-		
-		if (null != mOnRefreshListener) {
-			mOnRefreshListener.onRefresh(this);
-		} else if (null != mOnRefreshListener2) {
+		// The refresh is already running, and was attached to this View
+		if (mRefreshHandleReattached) {
+			mRefreshHandleReattached = false;
+			return;
+		}
+
+		// Created before the listeners are called, so that they can keep it
+		mRefreshHandle = new RefreshHandle(this, mCurrentMode, mState);
+
+		if (onHandleRefresh(mCurrentMode)) {
+			return;
+		}
+
+		final Object[] listeners = mOnRefreshListeners.getListeners();
+		for (int i = 0, z = listeners.length; i < z; i++) {
+			mOnRefreshListeners.get(listeners, i).onRefresh(this);
+		}
+
+		final Object[] listeners2 = mOnRefreshListeners2.getListeners();
+		for (int i = 0, z = listeners2.length; i < z; i++) {
 			if (mCurrentMode == Mode.PULL_FROM_START) {
-				mOnRefreshListener2.onPullDownToRefresh(this);
+				mOnRefreshListeners2.get(listeners2, i).onPullDownToRefresh(this);
 			} else if (mCurrentMode == Mode.PULL_FROM_END) {
-				mOnRefreshListener2.onPullUpToRefresh(this);
+				mOnRefreshListeners2.get(listeners2, i).onPullUpToRefresh(this);
 			}
 		}
 	}
 
+	/**
+	 * Removes the refresh listeners given to the setOnRefreshListener()
+	 * methods, as setting either one replaces both.
+	 */
+	private void clearSetRefreshListeners() {
+		if (null != mOnRefreshListener) {
+			mOnRefreshListeners.remove(mOnRefreshListener);
+			mOnRefreshListener = null;
+		}
+		if (null != mOnRefreshListener2) {
+			mOnRefreshListeners2.remove(mOnRefreshListener2);
+			mOnRefreshListener2 = null;
+		}
+	}
+
 	/**
 	 * 初始化
 	 * @param context
@@ -1370,17 +1984,7 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 */
 	@SuppressWarnings("deprecation")
 	private void init(Context context, AttributeSet attrs) {
-		switch (getPullToRefreshScrollDirection()) {
-			case HORIZONTAL:
-				setOrientation(LinearLayout.HORIZONTAL);
-				break;
-			case VERTICAL:
-			default:
-				setOrientation(LinearLayout.VERTICAL);
-				break;
-		}
-
-		setGravity(Gravity.CENTER);
+		mScrollAxis = ScrollAxis.forOrientation(getPullToRefreshScrollDirection());
 
 		ViewConfiguration config = ViewConfiguration.get(context);
 		mTouchSlop = config.getScaledTouchSlop();
@@ -1400,11 +2004,13 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		}
 
 		/**
-		 * 动画属性  默认 返回0 
+		 * 动画属性，从注册表中查找对应的工厂
 		 */
 		if (a.hasValue(R.styleable.PullToRefresh_ptrAnimationStyle)) {
-			mLoadingAnimationStyle = AnimationStyle.mapIntToValue(a.getInteger(
+			mLoadingLayoutFactory = LoadingLayoutRegistry.getOrDefault(a.getInteger(
 					R.styleable.PullToRefresh_ptrAnimationStyle, 0));
+		} else if (null == mLoadingLayoutFactory) {
+			mLoadingLayoutFactory = LoadingLayoutRegistry.getDefault();
 		}
 
 		// Refreshable View
@@ -1419,6 +2025,11 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		mHeaderLayout = createLoadingLayout(context, Mode.PULL_FROM_START, a);
 		mFooterLayout = createLoadingLayout(context, Mode.PULL_FROM_END, a);
 
+		// They are added once, either side of the Refreshable View, and Mode
+		// changes only attach and detach them
+		addViewInternal(mHeaderLayout, 0, getLoadingLayoutLayoutParams());
+		addViewInternal(mFooterLayout, getLoadingLayoutLayoutParams());
+
 		/**
 		 * 背景
 		 * Styleables from XML  
@@ -1445,6 +2056,14 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 					R.styleable.PullToRefresh_ptrScrollingWhileRefreshingEnabled, false);
 		}
 
+		if (a.hasValue(R.styleable.PullToRefresh_ptrCompactLoadingLayouts)) {
+			mCompactLoadingLayouts = a.getBoolean(R.styleable.PullToRefresh_ptrCompactLoadingLayouts, false);
+		}
+
+		if (a.hasValue(R.styleable.PullToRefresh_ptrCoalesceTouchEvents)) {
+			mCoalesceTouchEvents = a.getBoolean(R.styleable.PullToRefresh_ptrCoalesceTouchEvents, false);
+		}
+
 		// Let the derivative classes have a go at handling attributes, then
 		// recycle them...
 		handleStyledAttributes(a);
@@ -1481,19 +2100,8 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	private void pullEvent() {
 		final int newScrollValue;
 		final int itemDimension;
-		final float initialMotionValue, lastMotionValue;
-
-		switch (getPullToRefreshScrollDirection()) {
-			case HORIZONTAL:
-				initialMotionValue = mInitialMotionX;
-				lastMotionValue = mLastMotionX;
-				break;
-			case VERTICAL:
-			default:
-				initialMotionValue = mInitialMotionY;
-				lastMotionValue = mLastMotionY;
-				break;
-		}
+		final float initialMotionValue = mScrollAxis.getPrimary(mInitialMotionX, mInitialMotionY);
+		final float lastMotionValue = mScrollAxis.getPrimary(mLastMotionX, mLastMotionY);
 
 		switch (mCurrentMode) {
 			case PULL_FROM_END:
@@ -1530,33 +2138,42 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	}
 
 	/**
-	 * @return 动画装载器的参数
+	 * 提交下一帧的下拉事件
+	 * Posts a single pull event for the next animation frame. Any further MOVE
+	 * events before then just update the recorded position.
 	 */
-	private LinearLayout.LayoutParams getLoadingLayoutLayoutParams() {
-		
-		switch (getPullToRefreshScrollDirection()) {
-			case HORIZONTAL:
-				return new LinearLayout.LayoutParams(LinearLayout.LayoutParams.WRAP_CONTENT,
-						LinearLayout.LayoutParams.MATCH_PARENT);
-			case VERTICAL:
-			default:
-				return new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT,
-						LinearLayout.LayoutParams.WRAP_CONTENT);
+	private void schedulePullEvent() {
+		if (!mPullEventPending) {
+			mPullEventPending = true;
+			ViewCompat.postOnAnimation(this, mPullEventRunnable);
 		}
 	}
 
+	/**
+	 * 立即执行未处理的下拉事件
+	 */
+	private void flushPendingPullEvent() {
+		if (mPullEventPending) {
+			removeCallbacks(mPullEventRunnable);
+			mPullEventPending = false;
+			if (mIsBeingDragged) {
+				pullEvent();
+			}
+		}
+	}
+
+	/**
+	 * @return 动画装载器的参数
+	 */
+	private FrameLayout.LayoutParams getLoadingLayoutLayoutParams() {
+		return mScrollAxis.newLoadingLayoutParams();
+	}
+
 	/**
 	 * @return 最大刷新高度
 	 */
 	private int getMaximumPullScroll() {
-		
-		switch (getPullToRefreshScrollDirection()) {
-			case HORIZONTAL:
-				return Math.round(getWidth() / FRICTION);
-			case VERTICAL:
-			default:
-				return Math.round(getHeight() / FRICTION);
-		}
+		return Math.round(mScrollAxis.getSize(this) / FRICTION);
 	}
 
 	/**
@@ -1576,23 +2193,17 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 			mCurrentSmoothScrollRunnable.stop();
 		}
 
-		final int oldScrollValue;
-		switch (getPullToRefreshScrollDirection()) {
-			case HORIZONTAL:
-				oldScrollValue = getScrollX();
-				break;
-			case VERTICAL:
-			default:
-				oldScrollValue = getScrollY();
-				break;
-		}
+		final int oldScrollValue = mScrollAxis.getScroll(this);
 
 		if (oldScrollValue != newScrollValue) {
 			if (null == mScrollAnimationInterpolator) {
 				// Default interpolator is a Decelerate Interpolator
 				mScrollAnimationInterpolator = new DecelerateInterpolator();
 			}
-			mCurrentSmoothScrollRunnable = new SmoothScrollRunnable(oldScrollValue, newScrollValue, duration, listener);
+			if (null == mCurrentSmoothScrollRunnable) {
+				mCurrentSmoothScrollRunnable = new SmoothScrollRunnable();
+			}
+			mCurrentSmoothScrollRunnable.start(oldScrollValue, newScrollValue, duration, listener);
 
 			if (delayMillis > 0) {
 				postDelayed(mCurrentSmoothScrollRunnable, delayMillis);
@@ -1622,28 +2233,55 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 * @author Administrator
 	 *
 	 */
-	public static enum AnimationStyle {
+	public static enum AnimationStyle implements LoadingLayoutFactory {
 		
 		/**
 		 * 添加帧动画
 		 */
 		
-		FRAME,
+		FRAME(0x2),
 		
 		/**
 		 * This is the default for Android-PullToRefresh. Allows you to use any
 		 * drawable, which is automatically rotated and used as a Progress Bar.
 		 */
-		ROTATE,
+		ROTATE(0x0),
 
 		/**
 		 * This is the old default, and what is commonly used on iOS. Uses an
 		 * arrow image which flips depending on where the user has scrolled.
 		 */
-		FLIP;
-		
-		
-	
+		FLIP(0x1),
+
+		/**
+		 * 不使用子View，直接在Canvas上绘制
+		 * Same as {@link #ROTATE}, but the drawable and labels are drawn
+		 * directly rather than by child Views, so it is cheaper to measure,
+		 * layout and draw.
+		 */
+		CANVAS(0x3),
+
+		/**
+		 * 帧序列
+		 * Plays the frames of <code>ptrFrameSequence</code>, decoding them
+		 * in the background at the size they are displayed at, and only
+		 * keeping a few of them in memory.
+		 */
+		SEQUENCE(0x4);
+
+		private int mIntValue;
+
+		// The intValue values need to match those from attrs.xml
+		AnimationStyle(int intValue) {
+			mIntValue = intValue;
+		}
+
+		/**
+		 * @return ID of this style in {@link LoadingLayoutRegistry}
+		 */
+		public int getIntValue() {
+			return mIntValue;
+		}
 
 		static AnimationStyle getDefault() {
 			return ROTATE;
@@ -1667,6 +2305,10 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 					return FLIP;
 				case 0x2:
 					return FRAME;
+				case 0x3:
+					return CANVAS;
+				case 0x4:
+					return SEQUENCE;
 			}
 		}
 
@@ -1678,7 +2320,9 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		 * @param attrs
 		 * @return
 		 */
-		LoadingLayout createLoadingLayout(Context context, Mode mode, Orientation scrollDirection, TypedArray attrs) {
+		@Override
+		public LoadingLayout createLoadingLayout(Context context, Mode mode, Orientation scrollDirection,
+				TypedArray attrs) {
 			switch (this) {
 				case ROTATE:
 				default:
@@ -1688,7 +2332,13 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 					
 				case FRAME:
 					return new FrameLoadingLayout(context, mode, scrollDirection, attrs);
-					
+
+				case CANVAS:
+					return new CanvasLoadingLayout(context, mode, scrollDirection, attrs);
+
+				case SEQUENCE:
+					return new FrameSequenceLoadingLayout(context, mode, scrollDirection, attrs);
+
 			}
 		}
 	}
@@ -1962,6 +2612,32 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		 */
 		OVERSCROLLING(0x10);
 
+		/**
+		 * 状态转换表
+		 * TRANSITIONS[from.ordinal()][to.ordinal()] is true if a View in the
+		 * from state can move to the to state.
+		 */
+		private static final boolean[][] TRANSITIONS;
+
+		static {
+			final int count = values().length;
+			TRANSITIONS = new boolean[count][count];
+
+			// Restoring a refreshing View moves straight to REFRESHING
+			allow(RESET, RESET, PULL_TO_REFRESH, REFRESHING, MANUAL_REFRESHING, OVERSCROLLING);
+			allow(PULL_TO_REFRESH, RESET, RELEASE_TO_REFRESH, MANUAL_REFRESHING, OVERSCROLLING);
+			allow(RELEASE_TO_REFRESH, RESET, PULL_TO_REFRESH, REFRESHING, MANUAL_REFRESHING, OVERSCROLLING);
+			allow(REFRESHING, RESET);
+			allow(MANUAL_REFRESHING, RESET);
+			allow(OVERSCROLLING, RESET, PULL_TO_REFRESH, MANUAL_REFRESHING, OVERSCROLLING);
+		}
+
+		private static void allow(State from, State... to) {
+			for (State state : to) {
+				TRANSITIONS[from.ordinal()][state.ordinal()] = true;
+			}
+		}
+
 		/**
 		 * Maps an int to a specific state. This is needed when saving state.
 		 * 
@@ -1988,6 +2664,13 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 		int getIntValue() {
 			return mIntValue;
 		}
+
+		/**
+		 * @return true if a View in this state can move to the given state
+		 */
+		boolean canMoveTo(State state) {
+			return TRANSITIONS[ordinal()][state.ordinal()];
+		}
 	}
 
 	/**
@@ -1997,22 +2680,30 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 	 */
 	final class SmoothScrollRunnable implements Runnable {
 		
-		private final Interpolator mInterpolator;
-		private final int mScrollToY;
-		private final int mScrollFromY;
-		private final long mDuration;
+		private Interpolator mInterpolator;
+		private int mScrollToY;
+		private int mScrollFromY;
+		private long mDuration;
 		private OnSmoothScrollFinishedListener mListener;
 
 		private boolean mContinueRunning = true;
 		private long mStartTime = -1;
 		private int mCurrentY = -1;
 
-		public SmoothScrollRunnable(int fromY, int toY, long duration, OnSmoothScrollFinishedListener listener) {
+		/**
+		 * Sets up a new scroll, so that one runnable can be used for every
+		 * scroll. Post it afterwards to start scrolling.
+		 */
+		void start(int fromY, int toY, long duration, OnSmoothScrollFinishedListener listener) {
 			mScrollFromY = fromY;
 			mScrollToY = toY;
 			mInterpolator = mScrollAnimationInterpolator;
 			mDuration = duration;
 			mListener = listener;
+
+			mContinueRunning = true;
+			mStartTime = -1;
+			mCurrentY = -1;
 		}
 
 		@Override
@@ -2044,8 +2735,11 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 			if (mContinueRunning && mScrollToY != mCurrentY) {
 				ViewCompat.postOnAnimation(PullToRefreshBase.this, this);
 			} else {
-				if (null != mListener) {
-					mListener.onSmoothScrollFinished();
+				// The listener may start another scroll with this runnable
+				final OnSmoothScrollFinishedListener listener = mListener;
+				mListener = null;
+				if (null != listener) {
+					listener.onSmoothScrollFinished();
 				}
 			}
 		}
@@ -20,13 +20,36 @@ import android.content.Context;
 import android.os.Build.VERSION;
 import android.os.Build.VERSION_CODES;
 import android.util.AttributeSet;
+import android.util.SparseBooleanArray;
 import android.view.View;
+import android.widget.ExpandableListAdapter;
 import android.widget.ExpandableListView;
 
 import com.handmark.pulltorefresh.library.internal.EmptyViewMethodAccessor;
 
 public class PullToRefreshExpandableListView extends PullToRefreshAdapterViewBase<ExpandableListView> {
 
+	/**
+	 * Default number of children from the end of a group at which more are
+	 * loaded
+	 */
+	static final int DEFAULT_GROUP_PREFETCH_DISTANCE = 3;
+
+	private OnGroupRefreshListener mOnGroupRefreshListener;
+
+	/**
+	 * 正在加载的分组
+	 */
+	private final SparseBooleanArray mGroupsLoading = new SparseBooleanArray();
+
+	private int mGroupPrefetchDistance = DEFAULT_GROUP_PREFETCH_DISTANCE;
+
+	/**
+	 * The visible range last checked for prefetching, so that it is only
+	 * checked again when it changes
+	 */
+	private int mPrefetchFirstVisible = -1, mPrefetchVisibleCount = -1;
+
 	public PullToRefreshExpandableListView(Context context) {
 		super(context);
 	}
@@ -48,6 +71,138 @@ public class PullToRefreshExpandableListView extends PullToRefreshAdapterViewBas
 		return Orientation.VERTICAL;
 	}
 
+	/**
+	 * 设置分组刷新监听
+	 * Sets the listener which refreshes a group's children when it is
+	 * expanded, and loads more children as the end of the group is reached.
+	 * 
+	 * @param listener - Listener, or null to stop group refreshing
+	 */
+	public final void setOnGroupRefreshListener(OnGroupRefreshListener listener) {
+		mOnGroupRefreshListener = listener;
+		mGroupsLoading.clear();
+	}
+
+	/**
+	 * 设置预加载距离
+	 * Sets how many children from the end of an expanded group more children
+	 * are loaded. The default is 3.
+	 * 
+	 * @param children - Number of children, 0 to wait for the last child
+	 */
+	public final void setGroupPrefetchDistance(int children) {
+		mGroupPrefetchDistance = Math.max(0, children);
+	}
+
+	/**
+	 * 刷新分组
+	 * Refreshes the children of a group by calling
+	 * {@link OnGroupRefreshListener#onRefreshGroup(PullToRefreshExpandableListView, int)}
+	 * , unless the group is already being loaded.
+	 * 
+	 * @param groupPosition - Group to refresh
+	 */
+	public final void refreshGroup(int groupPosition) {
+		if (null != mOnGroupRefreshListener && !mGroupsLoading.get(groupPosition)) {
+			mGroupsLoading.put(groupPosition, true);
+			mOnGroupRefreshListener.onRefreshGroup(this, groupPosition);
+		}
+	}
+
+	/**
+	 * 分组加载完成
+	 * Call when a refresh or load started by the
+	 * {@link OnGroupRefreshListener} has finished, so that the group can be
+	 * loaded again.
+	 * 
+	 * @param groupPosition - Group which has finished loading
+	 */
+	public final void onGroupRefreshComplete(int groupPosition) {
+		mGroupsLoading.delete(groupPosition);
+
+		// Children may have been added, so check the visible range again
+		mPrefetchFirstVisible = mPrefetchVisibleCount = -1;
+	}
+
+	/**
+	 * @return true if the group is being refreshed or loading more children
+	 */
+	public final boolean isGroupRefreshing(int groupPosition) {
+		return mGroupsLoading.get(groupPosition);
+	}
+
+	/**
+	 * No Loading Layouts are added to the list, so the positions are exact.
+	 */
+	@Override
+	protected int getEdgePositionAllowance() {
+		return 0;
+	}
+
+	/**
+	 * 是否可以从底部开始刷新
+	 * Ready when the last visible position is the end of the last group,
+	 * worked out from its packed position: either the last child of the last
+	 * group, the last group itself if it is collapsed or has no children, or
+	 * a footer after it.
+	 */
+	@Override
+	protected boolean isReadyForPullEnd() {
+		final ExpandableListAdapter adapter = mRefreshableView.getExpandableListAdapter();
+		if (null == adapter || adapter.isEmpty()) {
+			return true;
+		}
+
+		final int lastVisiblePosition = mRefreshableView.getLastVisiblePosition();
+		if (!isEndOfLastGroup(adapter, mRefreshableView.getExpandableListPosition(lastVisiblePosition))) {
+			return false;
+		}
+
+		final int childIndex = lastVisiblePosition - mRefreshableView.getFirstVisiblePosition();
+		final View lastVisibleChild = mRefreshableView.getChildAt(childIndex);
+		if (lastVisibleChild != null) {
+			return lastVisibleChild.getBottom() <= mRefreshableView.getHeight()
+					- mRefreshableView.getListPaddingBottom();
+		}
+		return false;
+	}
+
+	/**
+	 * Looks for groups whose end is within the prefetch distance of the
+	 * visible range, and asks for more of their children.
+	 */
+	@Override
+	protected void onRefreshableViewScroll(int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+		if (null == mOnGroupRefreshListener || visibleItemCount == 0) {
+			return;
+		}
+		if (firstVisibleItem == mPrefetchFirstVisible && visibleItemCount == mPrefetchVisibleCount) {
+			return;
+		}
+		mPrefetchFirstVisible = firstVisibleItem;
+		mPrefetchVisibleCount = visibleItemCount;
+
+		final ExpandableListAdapter adapter = mRefreshableView.getExpandableListAdapter();
+		if (null == adapter) {
+			return;
+		}
+
+		for (int i = firstVisibleItem, z = firstVisibleItem + visibleItemCount; i < z; i++) {
+			final long packedPosition = mRefreshableView.getExpandableListPosition(i);
+			if (ExpandableListView.getPackedPositionType(packedPosition) != ExpandableListView.PACKED_POSITION_TYPE_CHILD) {
+				continue;
+			}
+
+			final int groupPosition = ExpandableListView.getPackedPositionGroup(packedPosition);
+			final int childPosition = ExpandableListView.getPackedPositionChild(packedPosition);
+			if (childPosition >= adapter.getChildrenCount(groupPosition) - 1 - mGroupPrefetchDistance
+					&& !mGroupsLoading.get(groupPosition)) {
+				mGroupsLoading.put(groupPosition, true);
+				mOnGroupRefreshListener.onLoadMoreChildren(this, groupPosition);
+			}
+		}
+	}
+
 	@Override
 	protected ExpandableListView createRefreshableView(Context context, AttributeSet attrs) {
 		final ExpandableListView lv;
@@ -62,10 +217,82 @@ public class PullToRefreshExpandableListView extends PullToRefreshAdapterViewBas
 		return lv;
 	}
 
+	private boolean isEndOfLastGroup(ExpandableListAdapter adapter, long packedPosition) {
+		final int lastGroup = adapter.getGroupCount() - 1;
+
+		switch (ExpandableListView.getPackedPositionType(packedPosition)) {
+			case ExpandableListView.PACKED_POSITION_TYPE_CHILD:
+				return ExpandableListView.getPackedPositionGroup(packedPosition) == lastGroup
+						&& ExpandableListView.getPackedPositionChild(packedPosition) == adapter
+								.getChildrenCount(lastGroup) - 1;
+
+			case ExpandableListView.PACKED_POSITION_TYPE_GROUP:
+				return ExpandableListView.getPackedPositionGroup(packedPosition) == lastGroup
+						&& (!mRefreshableView.isGroupExpanded(lastGroup) || adapter.getChildrenCount(lastGroup) == 0);
+
+			default:
+				// Header or footer, only a footer can be the last visible
+				// position when the list is scrolled to the end
+				return mRefreshableView.getLastVisiblePosition() == mRefreshableView.getCount() - 1;
+		}
+	}
+
+	/**
+	 * 分组刷新监听
+	 * Refreshes and pages the children of individual groups. Each call should
+	 * be followed by
+	 * {@link PullToRefreshExpandableListView#onGroupRefreshComplete(int)} when
+	 * the group has been loaded, until then the group won't be asked again.
+	 * 
+	 * @author Administrator
+	 * 
+	 */
+	public static interface OnGroupRefreshListener {
+
+		/**
+		 * Called when a group is expanded, or
+		 * {@link PullToRefreshExpandableListView#refreshGroup(int)} is called,
+		 * so that its children can be refreshed.
+		 * 
+		 * @param refreshView - View which the group is in
+		 * @param groupPosition - Group to refresh
+		 */
+		public void onRefreshGroup(PullToRefreshExpandableListView refreshView, int groupPosition);
+
+		/**
+		 * Called when the end of an expanded group's children is about to be
+		 * scrolled into view, so that more children can be loaded.
+		 * 
+		 * @param refreshView - View which the group is in
+		 * @param groupPosition - Group to load more children for
+		 */
+		public void onLoadMoreChildren(PullToRefreshExpandableListView refreshView, int groupPosition);
+
+	}
+
 	class InternalExpandableListView extends ExpandableListView implements EmptyViewMethodAccessor {
 
+		private OnGroupExpandListener mOnGroupExpandListener;
+
 		public InternalExpandableListView(Context context, AttributeSet attrs) {
 			super(context, attrs);
+
+			super.setOnGroupExpandListener(new OnGroupExpandListener() {
+				@Override
+				public void onGroupExpand(int groupPosition) {
+					refreshGroup(groupPosition);
+
+					if (null != mOnGroupExpandListener) {
+						mOnGroupExpandListener.onGroupExpand(groupPosition);
+					}
+				}
+			});
+		}
+
+		@Override
+		public void setOnGroupExpandListener(OnGroupExpandListener onGroupExpandListener) {
+			// Our listener stays set, and passes the call on
+			mOnGroupExpandListener = onGroupExpandListener;
 		}
 
 		@Override
@@ -17,16 +17,42 @@ package com.handmark.pulltorefresh.library;
 
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.res.TypedArray;
 import android.os.Build.VERSION;
 import android.os.Build.VERSION_CODES;
 import android.util.AttributeSet;
+import android.view.Gravity;
 import android.view.View;
+import android.widget.Adapter;
+import android.widget.FrameLayout;
 import android.widget.GridView;
 
 import com.handmark.pulltorefresh.library.internal.EmptyViewMethodAccessor;
+import com.handmark.pulltorefresh.library.internal.LoadingLayout;
 
+/**
+ * GridView 下拉刷新
+ * The edges are found a row at a time, from the number of columns and the
+ * bounds of the first and last rows, rather than with the ListView's
+ * allowance for header and footer Views. GridView has no footers, so a
+ * full-width loading row can be shown below the last row while the next
+ * page is appended.
+ *
+ * @author Administrator
+ *
+ */
 public class PullToRefreshGridView extends PullToRefreshAdapterViewBase<GridView> {
 
+	/**
+	 * 分页时在最后一行下面显示的载入布局
+	 */
+	private LoadingLayout mLoadingRow;
+
+	/**
+	 * 显示载入行之前 GridView 的底部边距, 显示载入行时会加上它的高度
+	 */
+	private int mGridPaddingBottom;
+
 	public PullToRefreshGridView(Context context) {
 		super(context);
 	}
@@ -48,6 +74,39 @@ public class PullToRefreshGridView extends PullToRefreshAdapterViewBase<GridView
 		return Orientation.VERTICAL;
 	}
 
+	/**
+	 * 显示或隐藏分页载入行
+	 * Shows a full-width Loading Layout below the last row of the grid, such
+	 * as while the next page is being appended from
+	 * {@link OnLastItemVisibleListener#onLastItemVisible()}. The grid gets
+	 * extra bottom padding so that it can be scrolled into view.
+	 * 
+	 * @param visible - Whether to show the loading row
+	 */
+	public final void setLoadingRowVisible(boolean visible) {
+		if (visible == isLoadingRowVisible()) {
+			return;
+		}
+
+		if (visible) {
+			// Taken each time, so that padding set on the grid later is kept
+			mGridPaddingBottom = getRefreshableView().getPaddingBottom();
+			mLoadingRow.refreshing();
+			mLoadingRow.setVisibility(View.VISIBLE);
+		} else {
+			mLoadingRow.setVisibility(View.GONE);
+			mLoadingRow.reset();
+			setGridPaddingBottom(mGridPaddingBottom);
+		}
+	}
+
+	/**
+	 * @return true if the paging loading row is showing
+	 */
+	public final boolean isLoadingRowVisible() {
+		return mLoadingRow.getVisibility() != View.GONE;
+	}
+
 	@Override
 	protected final GridView createRefreshableView(Context context, AttributeSet attrs) {
 		final GridView gv;
@@ -62,6 +121,183 @@ public class PullToRefreshGridView extends PullToRefreshAdapterViewBase<GridView
 		return gv;
 	}
 
+	@Override
+	protected void handleStyledAttributes(TypedArray a) {
+		super.handleStyledAttributes(a);
+
+		// Laid out over the grid, and moved to below its last row
+		mLoadingRow = createLoadingLayout(getContext(), Mode.PULL_FROM_END, a);
+		mLoadingRow.setVisibility(View.GONE);
+		addViewInternal(mLoadingRow, new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT,
+				FrameLayout.LayoutParams.WRAP_CONTENT, Gravity.TOP));
+	}
+
+	/**
+	 * GridView has no header or footer Views, so the positions are exact.
+	 */
+	@Override
+	protected int getEdgePositionAllowance() {
+		return 0;
+	}
+
+	@Override
+	protected boolean isReadyForPullStart() {
+		final GridView gv = getRefreshableView();
+		final Adapter adapter = gv.getAdapter();
+		if (null == adapter || adapter.isEmpty()) {
+			return true;
+		}
+
+		// The first row is showing, and its top isn't scrolled past the edge
+		if (gv.getFirstVisiblePosition() == 0 && gv.getChildCount() > 0) {
+			return getRowTop(gv, 0) >= gv.getListPaddingTop();
+		}
+		return false;
+	}
+
+	@Override
+	protected boolean isReadyForPullEnd() {
+		final GridView gv = getRefreshableView();
+		final Adapter adapter = gv.getAdapter();
+		if (null == adapter || adapter.isEmpty()) {
+			return true;
+		}
+
+		// The last row is showing, and its bottom isn't scrolled past the edge
+		if (gv.getLastVisiblePosition() == gv.getCount() - 1 && gv.getChildCount() > 0) {
+			return getRowBottom(gv, getLastRowStart(gv)) <= gv.getHeight() - gv.getListPaddingBottom();
+		}
+		return false;
+	}
+
+	@Override
+	protected void onRefreshableViewScroll(int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+		super.onRefreshableViewScroll(firstVisibleItem, visibleItemCount, totalItemCount);
+		if (isLoadingRowVisible()) {
+			positionLoadingRow();
+		}
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		if (isLoadingRowVisible()) {
+			// Room is made for the row before the grid is measured, so that
+			// it is laid out with it in one pass
+			measureChildWithMargins(mLoadingRow, widthMeasureSpec, 0, heightMeasureSpec, 0);
+			setGridPaddingBottom(mGridPaddingBottom + mLoadingRow.getMeasuredHeight());
+		}
+		super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+	}
+
+	@Override
+	protected boolean isChildMeasuredSeparately(View child) {
+		return child == mLoadingRow;
+	}
+
+	@Override
+	protected void onLayout(boolean changed, int l, int t, int r, int b) {
+		super.onLayout(changed, l, t, r, b);
+		if (isLoadingRowVisible()) {
+			positionLoadingRow();
+		}
+	}
+
+	/**
+	 * Moves the loading row to just below the last row, and hides it while
+	 * the last row isn't showing.
+	 */
+	private void positionLoadingRow() {
+		final GridView gv = getRefreshableView();
+		final int count = gv.getCount();
+		if (count == 0 || gv.getChildCount() == 0 || gv.getLastVisiblePosition() != count - 1) {
+			mLoadingRow.setVisibility(View.INVISIBLE);
+			return;
+		}
+
+		final int top = gv.getTop() + getRowBottom(gv, getLastRowStart(gv));
+		mLoadingRow.offsetTopAndBottom(top - mLoadingRow.getTop());
+		mLoadingRow.setVisibility(View.VISIBLE);
+		invalidate();
+	}
+
+	private void setGridPaddingBottom(int bottom) {
+		final GridView gv = getRefreshableView();
+		if (gv.getPaddingBottom() != bottom) {
+			gv.setPadding(gv.getPaddingLeft(), gv.getPaddingTop(), gv.getPaddingRight(), bottom);
+		}
+	}
+
+	/**
+	 * @return The position of the first item in the last row
+	 */
+	private static int getLastRowStart(GridView gv) {
+		final int numColumns = getNumColumns(gv);
+		return ((gv.getCount() - 1) / numColumns) * numColumns;
+	}
+
+	/**
+	 * @return The top of the highest child in the row starting at the
+	 *         position, which must be showing
+	 */
+	private static int getRowTop(GridView gv, int rowStart) {
+		final int firstVisible = gv.getFirstVisiblePosition();
+		final int numColumns = getNumColumns(gv);
+		int top = Integer.MAX_VALUE;
+		for (int i = Math.max(0, rowStart - firstVisible), z = Math.min(gv.getChildCount(), rowStart - firstVisible
+				+ numColumns); i < z; i++) {
+			top = Math.min(top, gv.getChildAt(i).getTop());
+		}
+		return top;
+	}
+
+	/**
+	 * @return The bottom of the lowest child in the row starting at the
+	 *         position, which must be showing
+	 */
+	private static int getRowBottom(GridView gv, int rowStart) {
+		final int firstVisible = gv.getFirstVisiblePosition();
+		final int numColumns = getNumColumns(gv);
+		int bottom = Integer.MIN_VALUE;
+		for (int i = Math.max(0, rowStart - firstVisible), z = Math.min(gv.getChildCount(), rowStart - firstVisible
+				+ numColumns); i < z; i++) {
+			bottom = Math.max(bottom, gv.getChildAt(i).getBottom());
+		}
+		return bottom;
+	}
+
+	/**
+	 * @return The number of columns the grid has been laid out with
+	 */
+	private static int getNumColumns(GridView gv) {
+		if (VERSION.SDK_INT >= VERSION_CODES.HONEYCOMB) {
+			final int numColumns = SDK11.getNumColumns(gv);
+			if (numColumns > 0) {
+				return numColumns;
+			}
+		}
+
+		// Count the children in the first showing row, which are all at the
+		// same top
+		final int childCount = gv.getChildCount();
+		if (childCount == 0) {
+			return 1;
+		}
+		final int firstTop = gv.getChildAt(0).getTop();
+		int numColumns = 1;
+		while (numColumns < childCount && gv.getChildAt(numColumns).getTop() == firstTop) {
+			numColumns++;
+		}
+		return numColumns;
+	}
+
+	@TargetApi(11)
+	static class SDK11 {
+
+		public static int getNumColumns(GridView gv) {
+			return gv.getNumColumns();
+		}
+	}
+
 	class InternalGridView extends GridView implements EmptyViewMethodAccessor {
 
 		public InternalGridView(Context context, AttributeSet attrs) {
@@ -53,7 +53,7 @@ public class PullToRefreshHorizontalScrollView extends PullToRefreshBase<Horizon
 		if (VERSION.SDK_INT >= VERSION_CODES.GINGERBREAD) {
 			scrollView = new InternalHorizontalScrollViewSDK9(context, attrs);
 		} else {
-			scrollView = new HorizontalScrollView(context, attrs);
+			scrollView = new InternalHorizontalScrollView(context, attrs);
 		}
 
 		scrollView.setId(R.id.scrollview);
@@ -62,11 +62,18 @@ public class PullToRefreshHorizontalScrollView extends PullToRefreshBase<Horizon
 
 	@Override
 	protected boolean isReadyForPullStart() {
+		if (mRefreshableView instanceof InternalHorizontalScrollView) {
+			return ((InternalHorizontalScrollView) mRefreshableView).isAtStartEdge();
+		}
 		return mRefreshableView.getScrollX() == 0;
 	}
 
 	@Override
 	protected boolean isReadyForPullEnd() {
+		if (mRefreshableView instanceof InternalHorizontalScrollView) {
+			return ((InternalHorizontalScrollView) mRefreshableView).isAtEndEdge();
+		}
+
 		View scrollViewChild = mRefreshableView.getChildAt(0);
 		if (null != scrollViewChild) {
 			return mRefreshableView.getScrollX() >= (scrollViewChild.getWidth() - getWidth());
@@ -74,8 +81,75 @@ public class PullToRefreshHorizontalScrollView extends PullToRefreshBase<Horizon
 		return false;
 	}
 
+	/**
+	 * 缓存滑动范围和边缘状态
+	 * Caches the scroll range, which is only recalculated after a layout, and
+	 * keeps track of whether we're at an edge as the View scrolls. This means
+	 * that the readiness checks don't need to look at the child.
+	 */
+	class InternalHorizontalScrollView extends HorizontalScrollView {
+
+		private int mScrollRange = -1;
+		private boolean mAtStartEdge = true;
+		private boolean mAtEndEdge = false;
+
+		public InternalHorizontalScrollView(Context context, AttributeSet attrs) {
+			super(context, attrs);
+		}
+
+		final boolean isAtStartEdge() {
+			return mAtStartEdge;
+		}
+
+		final boolean isAtEndEdge() {
+			return mAtEndEdge;
+		}
+
+		@Override
+		protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+			super.onSizeChanged(w, h, oldw, oldh);
+			mScrollRange = -1;
+		}
+
+		@Override
+		protected void onLayout(boolean changed, int l, int t, int r, int b) {
+			// The child has been laid out again, possibly with a new size
+			mScrollRange = -1;
+			super.onLayout(changed, l, t, r, b);
+			updateEdgeState(getScrollX());
+		}
+
+		@Override
+		protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+			super.onScrollChanged(l, t, oldl, oldt);
+			updateEdgeState(l);
+		}
+
+		/**
+		 * 获取最大滑动范围
+		 * Taken from the AOSP HorizontalScrollView source, but only calculated
+		 * once per layout
+		 */
+		final int getScrollRange() {
+			if (mScrollRange < 0) {
+				int scrollRange = 0;
+				if (getChildCount() > 0) {
+					View child = getChildAt(0);
+					scrollRange = Math.max(0, child.getWidth() - (getWidth() - getPaddingLeft() - getPaddingRight()));
+				}
+				mScrollRange = scrollRange;
+			}
+			return mScrollRange;
+		}
+
+		private void updateEdgeState(int scroll) {
+			mAtStartEdge = scroll <= 0;
+			mAtEndEdge = getChildCount() > 0 && scroll >= getScrollRange();
+		}
+	}
+
 	@TargetApi(9)
-	final class InternalHorizontalScrollViewSDK9 extends HorizontalScrollView {
+	final class InternalHorizontalScrollViewSDK9 extends InternalHorizontalScrollView {
 
 		public InternalHorizontalScrollViewSDK9(Context context, AttributeSet attrs) {
 			super(context, attrs);
@@ -94,17 +168,5 @@ public class PullToRefreshHorizontalScrollView extends PullToRefreshBase<Horizon
 
 			return returnValue;
 		}
-
-		/**
-		 * Taken from the AOSP ScrollView source
-		 */
-		private int getScrollRange() {
-			int scrollRange = 0;
-			if (getChildCount() > 0) {
-				View child = getChildAt(0);
-				scrollRange = Math.max(0, child.getWidth() - (getWidth() - getPaddingLeft() - getPaddingRight()));
-			}
-			return scrollRange;
-		}
 	}
 }
@@ -19,9 +19,11 @@ import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.os.Build.VERSION;
 import android.os.Build.VERSION_CODES;
 import android.util.AttributeSet;
+import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.View;
@@ -48,6 +50,11 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
        */
 	private boolean mListViewExtrasEnabled;
 
+	/**
+	 * 刷新时覆盖在列表上显示, 而不是作为列表的头部和底部
+	 */
+	private boolean mListViewOverlayRefreshing;
+
 	public PullToRefreshListView(Context context) {
 		super(context);
 	}
@@ -87,6 +94,7 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
 		 * 载入的布已局： 原始  载入 返回
 		 */
 		final LoadingLayout origLoadingView, listViewLoadingView, oppositeListViewLoadingView;
+		final Mode oppositeMode;
 		final int selection, scrollToY;
 
 		switch (getCurrentMode()) {
@@ -95,6 +103,7 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
 				origLoadingView = getFooterLayout();
 				listViewLoadingView = mFooterLoadingView;
 				oppositeListViewLoadingView = mHeaderLoadingView;
+				oppositeMode = Mode.PULL_FROM_START;
 				selection = mRefreshableView.getCount() - 1;
 				scrollToY = getScrollY() - getFooterSize();
 				break;
@@ -103,6 +112,7 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
 				origLoadingView = getHeaderLayout();
 				listViewLoadingView = mHeaderLoadingView;
 				oppositeListViewLoadingView = mFooterLoadingView;
+				oppositeMode = Mode.PULL_FROM_END;
 				selection = 0;
 				scrollToY = getScrollY() + getHeaderSize();
 				break;
@@ -115,11 +125,14 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
 		origLoadingView.reset();
 		origLoadingView.hideAllViews();
 
-		// Make sure the opposite end is hidden too
+		// Make sure the opposite end is hidden too, unless it is still
+		// refreshing
 		/**
 		 * 返向的隐藏
 		 */
-		oppositeListViewLoadingView.setVisibility(View.GONE);
+		if (!isRefreshing(oppositeMode)) {
+			oppositeListViewLoadingView.setVisibility(View.GONE);
+		}
 
 		// Show the ListView Loading View and set it to refresh.
 		/**
@@ -137,8 +150,11 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
 			setHeaderScroll(scrollToY);
 
 			// Make sure the ListView is scrolled to show the loading
-			// header/footer
-			mRefreshableView.setSelection(selection);
+			// header/footer. An overlay is always over the edge, so the list
+			// is left where it is
+			if (!mListViewOverlayRefreshing) {
+				mRefreshableView.setSelection(selection);
+			}
 
 			// Smooth scroll as normal
 			smoothScrollTo(0);
@@ -166,7 +182,8 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
 				listViewLoadingLayout = mFooterLoadingView;
 				selection = mRefreshableView.getCount() - 1;
 				scrollToHeight = getFooterSize();
-				scrollLvToEdge = Math.abs(mRefreshableView.getLastVisiblePosition() - selection) <= 1;
+				scrollLvToEdge = mListViewOverlayRefreshing
+						|| Math.abs(mRefreshableView.getLastVisiblePosition() - selection) <= 1;
 				break;
 			case PULL_FROM_START:
 			default:
@@ -174,7 +191,8 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
 				listViewLoadingLayout = mHeaderLoadingView;
 				scrollToHeight = -getHeaderSize();
 				selection = 0;
-				scrollLvToEdge = Math.abs(mRefreshableView.getFirstVisiblePosition() - selection) <= 1;
+				scrollLvToEdge = mListViewOverlayRefreshing
+						|| Math.abs(mRefreshableView.getFirstVisiblePosition() - selection) <= 1;
 				break;
 		}
 
@@ -194,7 +212,9 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
 			 * positioned correctly
 			 */
 			if (scrollLvToEdge && getState() != State.MANUAL_REFRESHING) {
-				mRefreshableView.setSelection(selection);
+				if (!mListViewOverlayRefreshing) {
+					mRefreshableView.setSelection(selection);
+				}
 				setHeaderScroll(scrollToHeight);
 			}
 		}
@@ -203,6 +223,53 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
 		super.onReset();
 	}
 
+	@Override
+	protected void onBackgroundRefreshComplete(Mode edge) {
+		if (mListViewExtrasEnabled) {
+			final LoadingLayout originalLoadingLayout, listViewLoadingLayout;
+			if (edge == Mode.PULL_FROM_END) {
+				originalLoadingLayout = getFooterLayout();
+				listViewLoadingLayout = mFooterLoadingView;
+			} else {
+				originalLoadingLayout = getHeaderLayout();
+				listViewLoadingLayout = mHeaderLoadingView;
+			}
+
+			// The edge isn't current, so just hide the ListView header/footer
+			// without scrolling
+			if (listViewLoadingLayout.getVisibility() == View.VISIBLE) {
+				originalLoadingLayout.showInvisibleViews();
+				listViewLoadingLayout.setVisibility(View.GONE);
+			}
+		}
+
+		super.onBackgroundRefreshComplete(edge);
+	}
+
+	@Override
+	protected void onBackgroundRefreshResumed(Mode edge) {
+		if (mListViewExtrasEnabled) {
+			final LoadingLayout listViewLoadingLayout = edge == Mode.PULL_FROM_END ? mFooterLoadingView
+					: mHeaderLoadingView;
+
+			// Still showing in the ListView, so nothing needs to move
+			if (listViewLoadingLayout.getVisibility() == View.VISIBLE) {
+				return;
+			}
+		}
+
+		super.onBackgroundRefreshResumed(edge);
+	}
+
+	/**
+	 * Only the header and footer Views which this class adds to the ListView
+	 * need allowing for, so the positions are exact without them.
+	 */
+	@Override
+	protected int getEdgePositionAllowance() {
+		return mListViewExtrasEnabled && !mListViewOverlayRefreshing ? 1 : 0;
+	}
+
 	@Override
 	protected LoadingLayoutProxy createLoadingLayoutProxy(final boolean includeStart, final boolean includeEnd) {
 		LoadingLayoutProxy proxy = super.createLoadingLayoutProxy(includeStart, includeEnd);
@@ -249,6 +316,34 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
 		return lv;
 	}
 
+	/**
+	 * 覆盖模式的背景
+	 * Loading Views laid over the rows need an opaque background, or the rows
+	 * show through them. Unless ptrHeaderBackground has been set, the
+	 * ListView's cache color hint is used, or the theme's background color
+	 * if there isn't one.
+	 */
+	private void setOverlayBackground(LoadingLayout layout, TypedArray a) {
+		if (a.hasValue(R.styleable.PullToRefresh_ptrHeaderBackground)) {
+			return;
+		}
+
+		final int cacheColorHint = mRefreshableView.getCacheColorHint();
+		if (Color.alpha(cacheColorHint) == 0xFF) {
+			layout.setBackgroundColor(cacheColorHint);
+			return;
+		}
+
+		final TypedValue value = new TypedValue();
+		if (getContext().getTheme().resolveAttribute(android.R.attr.colorBackground, value, true)) {
+			if (value.type >= TypedValue.TYPE_FIRST_COLOR_INT && value.type <= TypedValue.TYPE_LAST_COLOR_INT) {
+				layout.setBackgroundColor(value.data);
+			} else if (0 != value.resourceId) {
+				layout.setBackgroundResource(value.resourceId);
+			}
+		}
+	}
+
 	@Override
 	protected void handleStyledAttributes(TypedArray a) {
 		super.handleStyledAttributes(a);
@@ -256,23 +351,42 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
 		mListViewExtrasEnabled = a.getBoolean(R.styleable.PullToRefresh_ptrListViewExtrasEnabled, true);
 
 		if (mListViewExtrasEnabled) {
-			final FrameLayout.LayoutParams lp = new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT,
-					FrameLayout.LayoutParams.WRAP_CONTENT, Gravity.CENTER_HORIZONTAL);
-
-			// Create Loading Views ready for use later 头部的刷新组件
-			FrameLayout frame = new FrameLayout(getContext());
-			mHeaderLoadingView = createLoadingLayout(getContext(), Mode.PULL_FROM_START, a);
-			mHeaderLoadingView.setVisibility(View.GONE);
-			frame.addView(mHeaderLoadingView, lp);
-			mRefreshableView.addHeaderView(frame, null, false);
- 
-			/**
-			 * 底部的刷新组件
-			 */
-			mLvFooterLoadingFrame = new FrameLayout(getContext());
-			mFooterLoadingView = createLoadingLayout(getContext(), Mode.PULL_FROM_END, a);
-			mFooterLoadingView.setVisibility(View.GONE);
-			mLvFooterLoadingFrame.addView(mFooterLoadingView, lp);
+			mListViewOverlayRefreshing = a.getBoolean(R.styleable.PullToRefresh_ptrListViewOverlayRefreshing, false);
+
+			if (mListViewOverlayRefreshing) {
+				// Create Loading Views which are laid over the ListView's
+				// edges, so the adapter isn't wrapped 覆盖在列表上的刷新组件
+				mHeaderLoadingView = createLoadingLayout(getContext(), Mode.PULL_FROM_START, a);
+				mHeaderLoadingView.setVisibility(View.GONE);
+				setOverlayBackground(mHeaderLoadingView, a);
+				addViewInternal(mHeaderLoadingView, new FrameLayout.LayoutParams(
+						FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.WRAP_CONTENT, Gravity.TOP));
+
+				mFooterLoadingView = createLoadingLayout(getContext(), Mode.PULL_FROM_END, a);
+				mFooterLoadingView.setVisibility(View.GONE);
+				setOverlayBackground(mFooterLoadingView, a);
+				addViewInternal(mFooterLoadingView, new FrameLayout.LayoutParams(
+						FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.WRAP_CONTENT, Gravity.BOTTOM));
+			} else {
+				final FrameLayout.LayoutParams lp = new FrameLayout.LayoutParams(
+						FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.WRAP_CONTENT,
+						Gravity.CENTER_HORIZONTAL);
+
+				// Create Loading Views ready for use later 头部的刷新组件
+				FrameLayout frame = new FrameLayout(getContext());
+				mHeaderLoadingView = createLoadingLayout(getContext(), Mode.PULL_FROM_START, a);
+				mHeaderLoadingView.setVisibility(View.GONE);
+				frame.addView(mHeaderLoadingView, lp);
+				mRefreshableView.addHeaderView(frame, null, false);
+
+				/**
+				 * 底部的刷新组件
+				 */
+				mLvFooterLoadingFrame = new FrameLayout(getContext());
+				mFooterLoadingView = createLoadingLayout(getContext(), Mode.PULL_FROM_END, a);
+				mFooterLoadingView.setVisibility(View.GONE);
+				mLvFooterLoadingFrame.addView(mFooterLoadingView, lp);
+			}
 
 			/**
 			 * If the value for Scrolling While Refreshing hasn't been
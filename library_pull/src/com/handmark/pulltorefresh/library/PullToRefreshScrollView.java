@@ -52,7 +52,7 @@ public class PullToRefreshScrollView extends PullToRefreshBase<ScrollView> {
 		if (VERSION.SDK_INT >= VERSION_CODES.GINGERBREAD) {
 			scrollView = new InternalScrollViewSDK9(context, attrs);
 		} else {
-			scrollView = new ScrollView(context, attrs);
+			scrollView = new InternalScrollView(context, attrs);
 		}
 
 		scrollView.setId(R.id.scrollview);
@@ -62,6 +62,9 @@ public class PullToRefreshScrollView extends PullToRefreshBase<ScrollView> {
 	//偏移量为0时可以开始刷新
 	@Override
 	protected boolean isReadyForPullStart() {
+		if (mRefreshableView instanceof InternalScrollView) {
+			return ((InternalScrollView) mRefreshableView).isAtStartEdge();
+		}
 		return mRefreshableView.getScrollY() == 0;
 	}
 
@@ -71,6 +74,10 @@ public class PullToRefreshScrollView extends PullToRefreshBase<ScrollView> {
 	 */
 	@Override
 	protected boolean isReadyForPullEnd() {
+		if (mRefreshableView instanceof InternalScrollView) {
+			return ((InternalScrollView) mRefreshableView).isAtEndEdge();
+		}
+
 		View scrollViewChild = mRefreshableView.getChildAt(0);
 		if (null != scrollViewChild) {
 			return mRefreshableView.getScrollY() >= (scrollViewChild.getHeight() - getHeight());
@@ -78,8 +85,75 @@ public class PullToRefreshScrollView extends PullToRefreshBase<ScrollView> {
 		return false;
 	}
 
+	/**
+	 * 缓存滑动范围和边缘状态
+	 * Caches the scroll range, which is only recalculated after a layout, and
+	 * keeps track of whether we're at an edge as the View scrolls. This means
+	 * that the readiness checks don't need to look at the child.
+	 */
+	class InternalScrollView extends ScrollView {
+
+		private int mScrollRange = -1;
+		private boolean mAtStartEdge = true;
+		private boolean mAtEndEdge = false;
+
+		public InternalScrollView(Context context, AttributeSet attrs) {
+			super(context, attrs);
+		}
+
+		final boolean isAtStartEdge() {
+			return mAtStartEdge;
+		}
+
+		final boolean isAtEndEdge() {
+			return mAtEndEdge;
+		}
+
+		@Override
+		protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+			super.onSizeChanged(w, h, oldw, oldh);
+			mScrollRange = -1;
+		}
+
+		@Override
+		protected void onLayout(boolean changed, int l, int t, int r, int b) {
+			// The child has been laid out again, possibly with a new size
+			mScrollRange = -1;
+			super.onLayout(changed, l, t, r, b);
+			updateEdgeState(getScrollY());
+		}
+
+		@Override
+		protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+			super.onScrollChanged(l, t, oldl, oldt);
+			updateEdgeState(t);
+		}
+
+		/**
+		 * 获取最大滑动范围
+		 * Taken from the AOSP ScrollView source, but only calculated once per
+		 * layout
+		 */
+		final int getScrollRange() {
+			if (mScrollRange < 0) {
+				int scrollRange = 0;
+				if (getChildCount() > 0) {
+					View child = getChildAt(0);
+					scrollRange = Math.max(0, child.getHeight() - (getHeight() - getPaddingBottom() - getPaddingTop()));
+				}
+				mScrollRange = scrollRange;
+			}
+			return mScrollRange;
+		}
+
+		private void updateEdgeState(int scroll) {
+			mAtStartEdge = scroll <= 0;
+			mAtEndEdge = getChildCount() > 0 && scroll >= getScrollRange();
+		}
+	}
+
 	@TargetApi(9)
-	final class InternalScrollViewSDK9 extends ScrollView {
+	final class InternalScrollViewSDK9 extends InternalScrollView {
 
 		public InternalScrollViewSDK9(Context context, AttributeSet attrs) {
 			super(context, attrs);
@@ -98,18 +172,5 @@ public class PullToRefreshScrollView extends PullToRefreshBase<ScrollView> {
 
 			return returnValue;
 		}
-
-		/**
-		 * 获取最大滑动范围
-		 * Taken from the AOSP ScrollView source
-		 */
-		private int getScrollRange() {
-			int scrollRange = 0;
-			if (getChildCount() > 0) {
-				View child = getChildAt(0);
-				scrollRange = Math.max(0, child.getHeight() - (getHeight() - getPaddingBottom() - getPaddingTop()));
-			}
-			return scrollRange;
-		}
 	}
 }
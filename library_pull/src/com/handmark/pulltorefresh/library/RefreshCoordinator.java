@@ -0,0 +1,325 @@
+/*******************************************************************************
+ * Copyright 2011, 2012 Chris Banes.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.handmark.pulltorefresh.library;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.View;
+
+import com.handmark.pulltorefresh.library.PullToRefreshBase.OnRefreshListener;
+
+/**
+ * 刷新协调器
+ * Coordinates the refreshes of several Pull-to-Refresh Views which share data
+ * sources, such as the pages of a ViewPager which each hold a list. Each View
+ * is registered with the key of the data source it shows, and then:
+ * <ul>
+ * <li>refreshes asked for in the same frame are batched into one call to the
+ * {@link Fetcher}</li>
+ * <li>a key is only fetched once at a time, and every View showing it is
+ * completed when it finishes</li>
+ * <li>offscreen Views can be warmed, highest priority first</li>
+ * <li>offscreen work waits until the visible key's refresh has completed</li>
+ * </ul>
+ * Only used from the UI thread.
+ *
+ * @author Administrator
+ *
+ * @param <K> - Type of the data source keys
+ */
+public class RefreshCoordinator<K> {
+
+	static final String LOG_TAG = "PullToRefresh-RefreshCoordinator";
+
+	private final Fetcher<K> mFetcher;
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+	private final ArrayList<Registration<?>> mRegistrations = new ArrayList<Registration<?>>();
+
+	/**
+	 * 等待中的请求，按请求顺序
+	 */
+	private final LinkedHashSet<K> mPending = new LinkedHashSet<K>();
+
+	/**
+	 * 正在请求的数据源
+	 */
+	private final HashSet<K> mInFlight = new HashSet<K>();
+
+	private K mVisibleKey;
+	private boolean mDispatchScheduled = false;
+
+	private final Runnable mDispatchRunnable = new Runnable() {
+		@Override
+		public void run() {
+			mDispatchScheduled = false;
+			dispatchPending();
+		}
+	};
+
+	/**
+	 * @param fetcher - Makes the backend calls for batches of keys
+	 */
+	public RefreshCoordinator(Fetcher<K> fetcher) {
+		if (null == fetcher) {
+			throw new IllegalArgumentException("Fetcher can not be null");
+		}
+		mFetcher = fetcher;
+	}
+
+	/**
+	 * 注册
+	 * Registers a View, so that its refreshes go through this coordinator. A
+	 * View which has already been registered is registered again with the new
+	 * key and priority.
+	 *
+	 * @param view - View to register
+	 * @param key - Key of the data source it shows
+	 * @param priority - Offscreen Views with a higher priority are warmed
+	 *            first
+	 */
+	public final <V extends View> void register(PullToRefreshBase<V> view, K key, int priority) {
+		unregister(view);
+		final Registration<V> registration = new Registration<V>(view, key, priority);
+		view.addOnRefreshListener(registration, ListenerList.DEFAULT_PRIORITY);
+		mRegistrations.add(registration);
+	}
+
+	/**
+	 * 注销
+	 * Stops a View's refreshes going through this coordinator, such as when
+	 * its page is destroyed.
+	 *
+	 * @param view - View to unregister
+	 */
+	public final void unregister(PullToRefreshBase<?> view) {
+		for (int i = mRegistrations.size() - 1; i >= 0; i--) {
+			final Registration<?> registration = mRegistrations.get(i);
+			if (registration.mView == view) {
+				registration.detach();
+				mRegistrations.remove(i);
+			}
+		}
+	}
+
+	/**
+	 * 设置可见数据源
+	 * Sets the key of the data source which is currently on screen. Its
+	 * refreshes are always fetched first, and other work waits for them.
+	 *
+	 * @param key - Visible key, or null if nothing is visible
+	 */
+	public final void setVisibleKey(K key) {
+		mVisibleKey = key;
+		scheduleDispatch();
+	}
+
+	/**
+	 * 请求刷新
+	 * Asks for a data source to be fetched. Nothing happens if it is already
+	 * being fetched.
+	 *
+	 * @param key - Key to fetch
+	 */
+	public final void requestRefresh(K key) {
+		if (!mInFlight.contains(key) && mPending.add(key)) {
+			scheduleDispatch();
+		}
+	}
+
+	/**
+	 * 预热屏幕外的页面
+	 * Asks for every registered data source other than the visible one to be
+	 * fetched. They are fetched once the visible key isn't being fetched,
+	 * highest priority first.
+	 */
+	public final void warmOffscreen() {
+		for (int i = 0, z = mRegistrations.size(); i < z; i++) {
+			final K key = mRegistrations.get(i).mKey;
+			if (!equal(key, mVisibleKey)) {
+				requestRefresh(key);
+			}
+		}
+	}
+
+	/**
+	 * @return true if the key is being fetched
+	 */
+	public final boolean isInFlight(K key) {
+		return mInFlight.contains(key);
+	}
+
+	/**
+	 * 请求完成
+	 * Call when the {@link Fetcher} has finished with a key, whether it
+	 * succeeded or not. Every View showing it which is refreshing is
+	 * completed, and any work waiting for it is started.
+	 *
+	 * @param key - Key which has been fetched
+	 */
+	public final void onFetchComplete(K key) {
+		if (!mInFlight.remove(key)) {
+			return;
+		}
+
+		for (int i = 0, z = mRegistrations.size(); i < z; i++) {
+			final Registration<?> registration = mRegistrations.get(i);
+			if (equal(registration.mKey, key)) {
+				registration.mView.onRefreshComplete();
+			}
+		}
+
+		if (!mPending.isEmpty()) {
+			scheduleDispatch();
+		}
+	}
+
+	/**
+	 * 释放
+	 * Unregisters every View and drops any work which hasn't started. Fetches
+	 * which have already started can still be completed, but won't affect any
+	 * View.
+	 */
+	public final void release() {
+		for (int i = 0, z = mRegistrations.size(); i < z; i++) {
+			mRegistrations.get(i).detach();
+		}
+		mRegistrations.clear();
+		mPending.clear();
+		mHandler.removeCallbacks(mDispatchRunnable);
+		mDispatchScheduled = false;
+	}
+
+	private void scheduleDispatch() {
+		if (!mDispatchScheduled && !mPending.isEmpty()) {
+			mDispatchScheduled = true;
+			// Requests made while handling this frame are gathered into one
+			// batch
+			mHandler.post(mDispatchRunnable);
+		}
+	}
+
+	private void dispatchPending() {
+		if (mPending.isEmpty()) {
+			return;
+		}
+
+		final List<K> batch;
+		if (null != mVisibleKey && mPending.remove(mVisibleKey)) {
+			// The visible key goes on its own, so that it isn't slowed down by
+			// offscreen work
+			batch = Collections.singletonList(mVisibleKey);
+		} else if (null != mVisibleKey && mInFlight.contains(mVisibleKey)) {
+			if (PullToRefreshBase.DEBUG) {
+				Log.d(LOG_TAG, "Deferring " + mPending.size() + " keys until the visible key completes");
+			}
+			return;
+		} else {
+			batch = new ArrayList<K>(mPending);
+			mPending.clear();
+			sortByPriority(batch);
+		}
+
+		mInFlight.addAll(batch);
+		mFetcher.fetch(this, batch);
+	}
+
+	private void sortByPriority(List<K> keys) {
+		final HashMap<K, Integer> priorities = new HashMap<K, Integer>();
+		for (int i = 0, z = mRegistrations.size(); i < z; i++) {
+			final Registration<?> registration = mRegistrations.get(i);
+			final Integer priority = priorities.get(registration.mKey);
+			if (null == priority || priority < registration.mPriority) {
+				priorities.put(registration.mKey, registration.mPriority);
+			}
+		}
+
+		// Stable, so keys with the same priority stay in the order asked for
+		Collections.sort(keys, new Comparator<K>() {
+			@Override
+			public int compare(K lhs, K rhs) {
+				final Integer lhsPriority = priorities.get(lhs);
+				final Integer rhsPriority = priorities.get(rhs);
+				final int l = null != lhsPriority ? lhsPriority : Integer.MIN_VALUE;
+				final int r = null != rhsPriority ? rhsPriority : Integer.MIN_VALUE;
+				return l > r ? -1 : (l == r ? 0 : 1);
+			}
+		});
+	}
+
+	private static boolean equal(Object a, Object b) {
+		return a == b || (null != a && a.equals(b));
+	}
+
+	/**
+	 * 数据请求
+	 * Makes the backend calls for the coordinator.
+	 *
+	 * @author Administrator
+	 *
+	 * @param <K>
+	 */
+	public static interface Fetcher<K> {
+
+		/**
+		 * Fetch the data for a batch of keys in one call, and then call
+		 * {@link RefreshCoordinator#onFetchComplete(Object)} for each key.
+		 * The call should be asynchronous.
+		 *
+		 * @param coordinator - Coordinator making the request
+		 * @param keys - Keys to fetch, highest priority first
+		 */
+		public void fetch(RefreshCoordinator<K> coordinator, List<K> keys);
+
+	}
+
+	/**
+	 * A registered View, which is also its refresh listener.
+	 */
+	private final class Registration<V extends View> implements OnRefreshListener<V> {
+
+		final PullToRefreshBase<V> mView;
+		final K mKey;
+		final int mPriority;
+
+		Registration(PullToRefreshBase<V> view, K key, int priority) {
+			mView = view;
+			mKey = key;
+			mPriority = priority;
+		}
+
+		@Override
+		public void onRefresh(PullToRefreshBase<V> refreshView) {
+			// If the key is already being fetched, this shares that fetch and
+			// is completed with it
+			requestRefresh(mKey);
+		}
+
+		void detach() {
+			mView.removeOnRefreshListener(this);
+		}
+	}
+
+}
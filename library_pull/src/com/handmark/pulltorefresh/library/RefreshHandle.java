@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright 2011, 2012 Chris Banes.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.handmark.pulltorefresh.library;
+
+import java.lang.ref.WeakReference;
+
+import com.handmark.pulltorefresh.library.PullToRefreshBase.Mode;
+import com.handmark.pulltorefresh.library.PullToRefreshBase.State;
+
+/**
+ * 刷新句柄
+ * A refresh which is in flight. A handle is created each time a
+ * Pull-to-Refresh View calls its refresh listeners, and is returned by
+ * {@link PullToRefreshBase#getRefreshHandle()} while they are being called.
+ * <p/>
+ * Keep the handle in something which survives configuration changes along
+ * with the work, such as a retained Fragment, and give it to the new View
+ * with {@link PullToRefreshBase#attachRefreshHandle(RefreshHandle)} before
+ * its state is restored. The new View then shows the refresh which is
+ * already running, rather than calling its listeners and starting another.
+ * <p/>
+ * Completing the refresh on either View, or calling {@link #complete()},
+ * completes it on the View it is attached to. Only the View is weakly held,
+ * so the handle doesn't leak an old Activity. Only used from the UI thread.
+ *
+ * @author Administrator
+ *
+ */
+public final class RefreshHandle {
+
+	private final Mode mEdge;
+	private final State mState;
+
+	private WeakReference<PullToRefreshBase<?>> mView;
+	private boolean mComplete = false;
+
+	RefreshHandle(PullToRefreshBase<?> view, Mode edge, State state) {
+		mEdge = edge;
+		mState = state;
+		attach(view);
+	}
+
+	/**
+	 * @return The edge which is refreshing
+	 */
+	public Mode getEdge() {
+		return mEdge;
+	}
+
+	/**
+	 * @return true once the refresh has completed
+	 */
+	public boolean isComplete() {
+		return mComplete;
+	}
+
+	/**
+	 * 刷新完成
+	 * Marks the refresh as complete, and completes it on the View which it is
+	 * attached to, if that View is still around. Calling this more than once
+	 * does nothing.
+	 */
+	public void complete() {
+		if (mComplete) {
+			return;
+		}
+		mComplete = true;
+
+		final PullToRefreshBase<?> view = mView.get();
+		mView.clear();
+		if (null != view) {
+			view.onRefreshHandleComplete(this);
+		}
+	}
+
+	/**
+	 * @return The State the View was in when the refresh started, so that a
+	 *         new View can show it in the same way
+	 */
+	State getState() {
+		return mState;
+	}
+
+	void attach(PullToRefreshBase<?> view) {
+		mView = new WeakReference<PullToRefreshBase<?>>(view);
+	}
+
+}
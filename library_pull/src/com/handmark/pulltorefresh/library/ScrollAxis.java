@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright 2011, 2012 Chris Banes.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.handmark.pulltorefresh.library;
+
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.widget.FrameLayout;
+
+import com.handmark.pulltorefresh.library.PullToRefreshBase.Orientation;
+
+/**
+ * 滑动方向
+ * Everything which differs between pulling vertically and horizontally. A
+ * View resolves its axis once from
+ * {@link PullToRefreshBase#getPullToRefreshScrollDirection()}, so the touch
+ * and scroll code calls straight through to it rather than switching on the
+ * Orientation every time.
+ * <p/>
+ * The primary coordinate is the one along the pull direction, and the
+ * secondary coordinate is the one across it.
+ *
+ * @author Administrator
+ *
+ */
+abstract class ScrollAxis {
+
+	static final ScrollAxis VERTICAL = new Vertical();
+	static final ScrollAxis HORIZONTAL = new Horizontal();
+
+	static ScrollAxis forOrientation(Orientation orientation) {
+		return orientation == Orientation.HORIZONTAL ? HORIZONTAL : VERTICAL;
+	}
+
+	abstract float getPrimary(float x, float y);
+
+	abstract float getSecondary(float x, float y);
+
+	abstract int getPrimary(int x, int y);
+
+	/**
+	 * @return The View's scroll along the pull direction
+	 */
+	abstract int getScroll(View view);
+
+	/**
+	 * Scrolls the View along the pull direction only.
+	 */
+	abstract void scrollTo(View view, int value);
+
+	/**
+	 * @return The View's size along the pull direction
+	 */
+	abstract int getSize(View view);
+
+	abstract FrameLayout.LayoutParams newLoadingLayoutParams();
+
+	/**
+	 * Measures a Loading Layout to fill the content across the pull
+	 * direction.
+	 *
+	 * @param size - Size along the pull direction, or a negative value to
+	 *            wrap its content
+	 */
+	abstract void measureLoadingLayout(View child, int contentWidth, int contentHeight, int size);
+
+	/**
+	 * Lays out a child just before the content's start edge, where it is
+	 * revealed by scrolling towards the start.
+	 */
+	abstract void layoutBefore(View child, int left, int top, int right, int bottom);
+
+	/**
+	 * Lays out a child just after the content's end edge, where it is
+	 * revealed by scrolling towards the end.
+	 */
+	abstract void layoutAfter(View child, int left, int top, int right, int bottom);
+
+	static int getAxisMeasureSpec(int size) {
+		return size >= 0 ? MeasureSpec.makeMeasureSpec(size, MeasureSpec.EXACTLY) : MeasureSpec.makeMeasureSpec(0,
+				MeasureSpec.UNSPECIFIED);
+	}
+
+	private static final class Vertical extends ScrollAxis {
+
+		@Override
+		float getPrimary(float x, float y) {
+			return y;
+		}
+
+		@Override
+		float getSecondary(float x, float y) {
+			return x;
+		}
+
+		@Override
+		int getPrimary(int x, int y) {
+			return y;
+		}
+
+		@Override
+		int getScroll(View view) {
+			return view.getScrollY();
+		}
+
+		@Override
+		void scrollTo(View view, int value) {
+			view.scrollTo(0, value);
+		}
+
+		@Override
+		int getSize(View view) {
+			return view.getHeight();
+		}
+
+		@Override
+		FrameLayout.LayoutParams newLoadingLayoutParams() {
+			return new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT,
+					FrameLayout.LayoutParams.WRAP_CONTENT);
+		}
+
+		@Override
+		void measureLoadingLayout(View child, int contentWidth, int contentHeight, int size) {
+			child.measure(MeasureSpec.makeMeasureSpec(contentWidth, MeasureSpec.EXACTLY), getAxisMeasureSpec(size));
+		}
+
+		@Override
+		void layoutBefore(View child, int left, int top, int right, int bottom) {
+			child.layout(left, top - child.getMeasuredHeight(), right, top);
+		}
+
+		@Override
+		void layoutAfter(View child, int left, int top, int right, int bottom) {
+			child.layout(left, bottom, right, bottom + child.getMeasuredHeight());
+		}
+	}
+
+	private static final class Horizontal extends ScrollAxis {
+
+		@Override
+		float getPrimary(float x, float y) {
+			return x;
+		}
+
+		@Override
+		float getSecondary(float x, float y) {
+			return y;
+		}
+
+		@Override
+		int getPrimary(int x, int y) {
+			return x;
+		}
+
+		@Override
+		int getScroll(View view) {
+			return view.getScrollX();
+		}
+
+		@Override
+		void scrollTo(View view, int value) {
+			view.scrollTo(value, 0);
+		}
+
+		@Override
+		int getSize(View view) {
+			return view.getWidth();
+		}
+
+		@Override
+		FrameLayout.LayoutParams newLoadingLayoutParams() {
+			return new FrameLayout.LayoutParams(FrameLayout.LayoutParams.WRAP_CONTENT,
+					FrameLayout.LayoutParams.MATCH_PARENT);
+		}
+
+		@Override
+		void measureLoadingLayout(View child, int contentWidth, int contentHeight, int size) {
+			child.measure(getAxisMeasureSpec(size), MeasureSpec.makeMeasureSpec(contentHeight, MeasureSpec.EXACTLY));
+		}
+
+		@Override
+		void layoutBefore(View child, int left, int top, int right, int bottom) {
+			child.layout(left - child.getMeasuredWidth(), top, left, bottom);
+		}
+
+		@Override
+		void layoutAfter(View child, int left, int top, int right, int bottom) {
+			child.layout(right, top, right + child.getMeasuredWidth(), bottom);
+		}
+	}
+
+}
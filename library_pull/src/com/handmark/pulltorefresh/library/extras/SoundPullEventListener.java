@@ -15,22 +15,58 @@
  *******************************************************************************/
 package com.handmark.pulltorefresh.library.extras;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 
+import android.annotation.TargetApi;
 import android.content.Context;
+import android.media.AudioManager;
 import android.media.MediaPlayer;
+import android.media.SoundPool;
+import android.os.Build.VERSION;
+import android.os.Build.VERSION_CODES;
+import android.util.SparseBooleanArray;
 import android.view.View;
 
 import com.handmark.pulltorefresh.library.PullToRefreshBase;
 import com.handmark.pulltorefresh.library.PullToRefreshBase.Mode;
 import com.handmark.pulltorefresh.library.PullToRefreshBase.State;
 
+/**
+ * 下拉声音监听
+ * Plays a sound for each Pull Event. Sounds are decoded once, in the
+ * background, when they are added and then played from a {@link SoundPool}, so
+ * nothing is loaded on the UI thread while the user is pulling. Register it
+ * with {@link PullToRefreshBase#addPullFeedbackListener(PullToRefreshBase.OnPullEventListener)}
+ * so that it is called outside of the touch handling, and call
+ * {@link #release()} when the listener is no longer needed.
+ * 
+ * @author Administrator
+ * 
+ * @param <V>
+ */
 public class SoundPullEventListener<V extends View> implements PullToRefreshBase.OnPullEventListener<V> {
 
+	/**
+	 * Default number of sounds which can be playing at once
+	 */
+	public static final int DEFAULT_MAX_STREAMS = 2;
+
 	private final Context mContext;
-	private final HashMap<State, Integer> mSoundMap;
+	private final SoundPool mSoundPool;
+
+	/**
+	 * SoundPool sound IDs for each event
+	 */
+	private final EnumMap<State, Integer> mSoundMap;
+
+	/**
+	 * Sound IDs which have finished loading. Before Froyo there is no load
+	 * callback, so sounds are just played and SoundPool skips those which
+	 * haven't loaded yet.
+	 */
+	private final SparseBooleanArray mLoadedSounds;
 
-	private MediaPlayer mCurrentMediaPlayer;
+	private OnSoundLoadedListener mOnSoundLoadedListener;
 
 	/**
 	 * Constructor
@@ -38,15 +74,32 @@ public class SoundPullEventListener<V extends View> implements PullToRefreshBase
 	 * @param context - Context
 	 */
 	public SoundPullEventListener(Context context) {
-		mContext = context;
-		mSoundMap = new HashMap<State, Integer>();
+		this(context, DEFAULT_MAX_STREAMS);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param context - Context
+	 * @param maxStreams - Maximum number of sounds which can be playing at
+	 *            once. When exceeded, the oldest sound is stopped.
+	 */
+	public SoundPullEventListener(Context context, int maxStreams) {
+		mContext = context.getApplicationContext();
+		mSoundPool = new SoundPool(Math.max(1, maxStreams), AudioManager.STREAM_MUSIC, 0);
+		mSoundMap = new EnumMap<State, Integer>(State.class);
+		mLoadedSounds = new SparseBooleanArray();
+
+		if (VERSION.SDK_INT >= VERSION_CODES.FROYO) {
+			SDK8.setOnLoadCompleteListener(mSoundPool, this);
+		}
 	}
 
 	@Override
 	public final void onPullEvent(PullToRefreshBase<V> refreshView, State event, Mode direction) {
-		Integer soundResIdObj = mSoundMap.get(event);
-		if (null != soundResIdObj) {
-			playSound(soundResIdObj.intValue());
+		Integer soundIdObj = mSoundMap.get(event);
+		if (null != soundIdObj) {
+			playSound(soundIdObj.intValue());
 		}
 	}
 
@@ -57,39 +110,130 @@ public class SoundPullEventListener<V extends View> implements PullToRefreshBase
 	 * <p/>
 	 * If you've already set a sound for a certain event, and add another sound
 	 * for that event, only the new sound will be played.
+	 * <p/>
+	 * The sound is loaded asynchronously, use
+	 * {@link #setOnSoundLoadedListener(OnSoundLoadedListener)} to find out when
+	 * it is ready.
 	 * 
 	 * @param event - The event for which the sound will be played.
 	 * @param resId - Resource Id of the sound file to be played (e.g.
 	 *            <var>R.raw.pull_sound</var>)
 	 */
 	public void addSoundEvent(State event, int resId) {
-		mSoundMap.put(event, resId);
+		Integer previousSoundId = mSoundMap.remove(event);
+		if (null != previousSoundId) {
+			unloadSound(previousSoundId.intValue());
+		}
+
+		final int soundId = mSoundPool.load(mContext, resId, 1);
+		if (soundId != 0) {
+			mSoundMap.put(event, soundId);
+		}
 	}
 
 	/**
 	 * Clears all of the previously set sounds and events.
 	 */
 	public void clearSounds() {
+		for (Integer soundId : mSoundMap.values()) {
+			unloadSound(soundId.intValue());
+		}
 		mSoundMap.clear();
 	}
 
 	/**
 	 * Gets the current (or last) MediaPlayer instance.
+	 * 
+	 * @deprecated Sounds are now played with a {@link SoundPool}, so this
+	 *             always returns null.
 	 */
+	@Deprecated
 	public MediaPlayer getCurrentMediaPlayer() {
-		return mCurrentMediaPlayer;
+		return null;
 	}
 
-	private void playSound(int resId) {
-		// Stop current player, if there's one playing
-		if (null != mCurrentMediaPlayer) {
-			mCurrentMediaPlayer.stop();
-			mCurrentMediaPlayer.release();
+	/**
+	 * Sets the listener to be called when each sound has been loaded.
+	 * 
+	 * @param listener - Listener, or null to remove it
+	 */
+	public void setOnSoundLoadedListener(OnSoundLoadedListener listener) {
+		mOnSoundLoadedListener = listener;
+	}
+
+	/**
+	 * 释放声音
+	 * Releases all of the sounds. The listener won't play anything after this
+	 * call.
+	 */
+	public void release() {
+		mSoundMap.clear();
+		mLoadedSounds.clear();
+		mSoundPool.release();
+	}
+
+	void onSoundLoaded(int soundId, boolean success) {
+		// Find the event, it may have been replaced or cleared while loading
+		State event = null;
+		for (State state : mSoundMap.keySet()) {
+			if (mSoundMap.get(state).intValue() == soundId) {
+				event = state;
+				break;
+			}
+		}
+		if (null == event) {
+			return;
+		}
+
+		if (success) {
+			mLoadedSounds.put(soundId, true);
+		}
+		if (null != mOnSoundLoadedListener) {
+			mOnSoundLoadedListener.onSoundLoaded(event, success);
+		}
+	}
+
+	private void playSound(int soundId) {
+		// Without the load callback we can't tell, so just try
+		if (VERSION.SDK_INT < VERSION_CODES.FROYO || mLoadedSounds.get(soundId)) {
+			mSoundPool.play(soundId, 1f, 1f, 1, 0, 1f);
 		}
+	}
+
+	private void unloadSound(int soundId) {
+		mLoadedSounds.delete(soundId);
+		mSoundPool.unload(soundId);
+	}
+
+	/**
+	 * 声音加载完成监听
+	 * Called on the UI thread when a sound added with
+	 * {@link SoundPullEventListener#addSoundEvent(State, int)} has been loaded.
+	 * Only called on Froyo and above.
+	 * 
+	 * @author Administrator
+	 * 
+	 */
+	public static interface OnSoundLoadedListener {
+
+		/**
+		 * @param event - Event which the sound will be played for
+		 * @param success - false if the sound could not be loaded
+		 */
+		public void onSoundLoaded(State event, boolean success);
+
+	}
+
+	@TargetApi(8)
+	static class SDK8 {
 
-		mCurrentMediaPlayer = MediaPlayer.create(mContext, resId);
-		if (null != mCurrentMediaPlayer) {
-			mCurrentMediaPlayer.start();
+		public static void setOnLoadCompleteListener(SoundPool soundPool, final SoundPullEventListener<?> listener) {
+			soundPool.setOnLoadCompleteListener(new SoundPool.OnLoadCompleteListener() {
+				@Override
+				public void onLoadComplete(SoundPool soundPool, int sampleId, int status) {
+					listener.onSoundLoaded(sampleId, status == 0);
+				}
+			});
 		}
 	}
 
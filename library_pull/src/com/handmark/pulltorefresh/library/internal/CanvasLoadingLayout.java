@@ -0,0 +1,429 @@
+/*******************************************************************************
+ * Copyright 2011, 2012 Chris Banes.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.handmark.pulltorefresh.library.internal;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.TypedValue;
+
+import com.handmark.pulltorefresh.library.PullToRefreshBase.Mode;
+import com.handmark.pulltorefresh.library.PullToRefreshBase.Orientation;
+import com.handmark.pulltorefresh.library.R;
+
+/**
+ * 直接在Canvas上绘制的载入布局，没有子View
+ * A Loading Layout which has no child Views. The drawable, label and sub-label
+ * are all drawn in {@link #onDraw(Canvas)} using cached Paint and StaticLayout
+ * objects. While pulling and refreshing only the bounds of the drawable are
+ * invalidated.
+ *
+ * @author Administrator
+ *
+ */
+@SuppressLint("ViewConstructor")
+public class CanvasLoadingLayout extends LoadingLayout {
+
+	static final int ROTATION_ANIMATION_DURATION = 1200;
+
+	/**
+	 * Pull, Release and Refreshing labels, plus the sub-label
+	 */
+	static final int LAYOUT_CACHE_SIZE = 4;
+
+	private final TextPaint mTextPaint;
+	private final TextPaint mSubTextPaint;
+
+	private final CharSequence[] mLayoutCacheKeys = new CharSequence[LAYOUT_CACHE_SIZE];
+	private final StaticLayout[] mLayoutCache = new StaticLayout[LAYOUT_CACHE_SIZE];
+	private int mNextLayoutCacheSlot = 0;
+
+	private final Rect mDrawableBounds = new Rect();
+	private final Rect mSpinnerBounds = new Rect();
+	private final int mHorizontalPadding, mVerticalPadding;
+	private final boolean mRotateDrawableWhilePulling;
+
+	private Drawable mDrawable;
+	private CharSequence mLabel;
+	private CharSequence mSubLabel;
+
+	private float mRotation;
+	private boolean mRefreshing;
+	private boolean mContentVisible = true;
+	private long mRefreshingStartTime;
+
+	public CanvasLoadingLayout(Context context, Mode mode, Orientation scrollDirection, TypedArray attrs) {
+		super(context, mode, scrollDirection, attrs, false);
+
+		// FrameLayout doesn't draw by default
+		setWillNotDraw(false);
+
+		mHorizontalPadding = getResources().getDimensionPixelSize(R.dimen.header_footer_left_right_padding);
+		mVerticalPadding = getResources().getDimensionPixelSize(R.dimen.header_footer_top_bottom_padding);
+		mRotateDrawableWhilePulling = attrs.getBoolean(R.styleable.PullToRefresh_ptrRotateDrawableWhilePulling, true);
+
+		mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+		mTextPaint.setFakeBoldText(true);
+		mSubTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+		// Same defaults as the TextViews in the inflated layout
+		TypedArray theme = context.getTheme().obtainStyledAttributes(
+				new int[] { android.R.attr.textAppearance, android.R.attr.textAppearanceSmall });
+		applyTextAppearance(mTextPaint, theme.getResourceId(0, 0));
+		applyTextAppearance(mSubTextPaint, theme.getResourceId(1, 0));
+		theme.recycle();
+
+		if (attrs.hasValue(R.styleable.PullToRefresh_ptrHeaderTextAppearance)) {
+			TypedValue styleID = new TypedValue();
+			attrs.getValue(R.styleable.PullToRefresh_ptrHeaderTextAppearance, styleID);
+			applyTextAppearance(mTextPaint, styleID.data);
+			applyTextAppearance(mSubTextPaint, styleID.data);
+		}
+		if (attrs.hasValue(R.styleable.PullToRefresh_ptrSubHeaderTextAppearance)) {
+			TypedValue styleID = new TypedValue();
+			attrs.getValue(R.styleable.PullToRefresh_ptrSubHeaderTextAppearance, styleID);
+			applyTextAppearance(mSubTextPaint, styleID.data);
+		}
+
+		// Text Color attrs need to be set after TextAppearance attrs
+		if (attrs.hasValue(R.styleable.PullToRefresh_ptrHeaderTextColor)) {
+			ColorStateList colors = attrs.getColorStateList(R.styleable.PullToRefresh_ptrHeaderTextColor);
+			if (null != colors) {
+				mTextPaint.setColor(colors.getDefaultColor());
+				mSubTextPaint.setColor(colors.getDefaultColor());
+			}
+		}
+		if (attrs.hasValue(R.styleable.PullToRefresh_ptrHeaderSubTextColor)) {
+			ColorStateList colors = attrs.getColorStateList(R.styleable.PullToRefresh_ptrHeaderSubTextColor);
+			if (null != colors) {
+				mSubTextPaint.setColor(colors.getDefaultColor());
+			}
+		}
+
+		mLabel = mPullLabel;
+	}
+
+	@Override
+	public void setLastUpdatedLabel(CharSequence label) {
+		mSubLabel = TextUtils.isEmpty(label) ? null : label;
+		invalidate();
+	}
+
+	@Override
+	public void setPullLabel(CharSequence pullLabel) {
+		if (mLabel == mPullLabel) {
+			mLabel = pullLabel;
+			invalidate();
+		}
+		super.setPullLabel(pullLabel);
+	}
+
+	@Override
+	public void setRefreshingLabel(CharSequence refreshingLabel) {
+		if (mLabel == mRefreshingLabel) {
+			mLabel = refreshingLabel;
+			invalidate();
+		}
+		super.setRefreshingLabel(refreshingLabel);
+	}
+
+	@Override
+	public void setReleaseLabel(CharSequence releaseLabel) {
+		if (mLabel == mReleaseLabel) {
+			mLabel = releaseLabel;
+			invalidate();
+		}
+		super.setReleaseLabel(releaseLabel);
+	}
+
+	@Override
+	public void setTextTypeface(Typeface tf) {
+		mTextPaint.setTypeface(tf);
+		clearLayoutCache();
+		invalidate();
+	}
+
+	@Override
+	protected int getDefaultDrawableResId() {
+		return R.drawable.default_ptr_rotate;
+	}
+
+	@Override
+	protected int getDrawnContentSize() {
+		if (mScrollDirection == Orientation.HORIZONTAL) {
+			return getDrawableSize() + 2 * mHorizontalPadding;
+		}
+
+		int textHeight = getLineHeight(mTextPaint);
+		if (null != mSubLabel) {
+			textHeight += getLineHeight(mSubTextPaint);
+		}
+		return Math.max(getDrawableSize(), textHeight) + 2 * mVerticalPadding;
+	}
+
+	@Override
+	protected void onDrawnContentVisibilityChanged(boolean visible) {
+		if (mContentVisible != visible) {
+			mContentVisible = visible;
+			invalidate();
+		}
+	}
+
+	@Override
+	protected void onLoadingDrawableSet(Drawable imageDrawable) {
+		// Called from the super constructor, before our fields are ready
+		mDrawable = imageDrawable;
+		if (null != mDrawableBounds) {
+			updateDrawableBounds();
+			invalidate();
+		}
+	}
+
+	@Override
+	protected void onPullImpl(float scaleOfLayout) {
+		if (mRotateDrawableWhilePulling) {
+			mRotation = scaleOfLayout * 90f;
+		} else {
+			mRotation = Math.max(0f, Math.min(180f, scaleOfLayout * 360f - 180f));
+		}
+		invalidate(mSpinnerBounds);
+	}
+
+	@Override
+	protected void pullToRefreshImpl() {
+		setLabel(mPullLabel);
+	}
+
+	@Override
+	protected void refreshingImpl() {
+		setLabel(mRefreshingLabel);
+		mRefreshing = true;
+		mRefreshingStartTime = SystemClock.uptimeMillis();
+		invalidate();
+	}
+
+	@Override
+	protected void releaseToRefreshImpl() {
+		setLabel(mReleaseLabel);
+	}
+
+	@Override
+	protected void resetImpl() {
+		// Called from the super constructor, before our fields are ready
+		if (null != mLayoutCache) {
+			setLabel(mPullLabel);
+			mRefreshing = false;
+			mRotation = 0f;
+			invalidate();
+		}
+	}
+
+	@Override
+	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		super.onSizeChanged(w, h, oldw, oldh);
+		updateDrawableBounds();
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas) {
+		super.onDraw(canvas);
+
+		if (!mContentVisible) {
+			return;
+		}
+
+		if (null != mDrawable) {
+			if (mRefreshing) {
+				final long elapsed = (SystemClock.uptimeMillis() - mRefreshingStartTime) % ROTATION_ANIMATION_DURATION;
+				mRotation = 720f * elapsed / ROTATION_ANIMATION_DURATION;
+			}
+
+			final int saveCount = canvas.save();
+			canvas.rotate(mRotation, mDrawableBounds.exactCenterX(), mDrawableBounds.exactCenterY());
+			mDrawable.draw(canvas);
+			canvas.restoreToCount(saveCount);
+
+			if (mRefreshing) {
+				// Only the spinner changes, so only redraw that
+				invalidate(mSpinnerBounds);
+			}
+		}
+
+		// Labels are only shown in the vertical layout, like the inflated one
+		if (mScrollDirection == Orientation.VERTICAL) {
+			final int contentTop = getContentTop();
+			final int centerX = getWidth() / 2;
+
+			final StaticLayout labelLayout = getTextLayout(mLabel, mTextPaint);
+			final StaticLayout subLabelLayout = mRefreshing ? null : getTextLayout(mSubLabel, mSubTextPaint);
+
+			int textHeight = null != labelLayout ? labelLayout.getHeight() : 0;
+			if (null != subLabelLayout) {
+				textHeight += subLabelLayout.getHeight();
+			}
+
+			int y = contentTop + (getDrawnContentSize() - textHeight) / 2;
+			if (null != labelLayout) {
+				drawTextLayout(canvas, labelLayout, centerX, y);
+				y += labelLayout.getHeight();
+			}
+			if (null != subLabelLayout) {
+				drawTextLayout(canvas, subLabelLayout, centerX, y);
+			}
+		}
+	}
+
+	private void setLabel(CharSequence label) {
+		if (mLabel != label) {
+			mLabel = label;
+			invalidate();
+		}
+	}
+
+	/**
+	 * @return Top of the content block. The content sits against the edge
+	 *         which is next to the Refreshable View.
+	 */
+	private int getContentTop() {
+		if (mScrollDirection == Orientation.VERTICAL && mMode == Mode.PULL_FROM_START) {
+			return getHeight() - getDrawnContentSize();
+		}
+		return 0;
+	}
+
+	/**
+	 * @return Left of the content block. The content sits against the edge
+	 *         which is next to the Refreshable View.
+	 */
+	private int getContentLeft() {
+		if (mScrollDirection == Orientation.HORIZONTAL && mMode == Mode.PULL_FROM_START) {
+			return getWidth() - getDrawnContentSize();
+		}
+		return 0;
+	}
+
+	private int getDrawableSize() {
+		if (null == mDrawable) {
+			return 0;
+		}
+
+		// Square, so that it doesn't clip when rotated
+		return Math.max(mDrawable.getIntrinsicWidth(), mDrawable.getIntrinsicHeight());
+	}
+
+	private void updateDrawableBounds() {
+		if (null == mDrawable) {
+			mDrawableBounds.setEmpty();
+			mSpinnerBounds.setEmpty();
+			return;
+		}
+
+		final int dWidth = mDrawable.getIntrinsicWidth();
+		final int dHeight = mDrawable.getIntrinsicHeight();
+		final int size = getDrawableSize();
+		final int left, top;
+
+		switch (mScrollDirection) {
+			case HORIZONTAL:
+				left = getContentLeft() + mHorizontalPadding;
+				top = (getHeight() - size) / 2;
+				break;
+			case VERTICAL:
+			default:
+				left = mHorizontalPadding;
+				top = getContentTop() + (getDrawnContentSize() - size) / 2;
+				break;
+		}
+
+		mSpinnerBounds.set(left, top, left + size, top + size);
+
+		final int dLeft = left + (size - dWidth) / 2;
+		final int dTop = top + (size - dHeight) / 2;
+		mDrawableBounds.set(dLeft, dTop, dLeft + dWidth, dTop + dHeight);
+		mDrawable.setBounds(mDrawableBounds);
+	}
+
+	private StaticLayout getTextLayout(CharSequence text, TextPaint paint) {
+		if (TextUtils.isEmpty(text)) {
+			return null;
+		}
+
+		for (int i = 0; i < LAYOUT_CACHE_SIZE; i++) {
+			if (mLayoutCacheKeys[i] == text && null != mLayoutCache[i] && mLayoutCache[i].getPaint() == paint) {
+				return mLayoutCache[i];
+			}
+		}
+
+		final int width = (int) Math.ceil(Layout.getDesiredWidth(text, paint));
+		final StaticLayout layout = new StaticLayout(text, paint, width, Layout.Alignment.ALIGN_CENTER, 1f, 0f,
+				false);
+
+		final int slot = mNextLayoutCacheSlot;
+		mLayoutCacheKeys[slot] = text;
+		mLayoutCache[slot] = layout;
+		mNextLayoutCacheSlot = (slot + 1) % LAYOUT_CACHE_SIZE;
+		return layout;
+	}
+
+	private void clearLayoutCache() {
+		for (int i = 0; i < LAYOUT_CACHE_SIZE; i++) {
+			mLayoutCacheKeys[i] = null;
+			mLayoutCache[i] = null;
+		}
+	}
+
+	private void applyTextAppearance(TextPaint paint, int styleId) {
+		if (0 == styleId) {
+			return;
+		}
+
+		TypedArray a = getContext().obtainStyledAttributes(styleId, new int[] { android.R.attr.textSize,
+				android.R.attr.textColor });
+		if (a.hasValue(0)) {
+			paint.setTextSize(a.getDimensionPixelSize(0, (int) paint.getTextSize()));
+		}
+		if (a.hasValue(1)) {
+			ColorStateList colors = a.getColorStateList(1);
+			if (null != colors) {
+				paint.setColor(colors.getDefaultColor());
+			}
+		}
+		a.recycle();
+	}
+
+	private static int getLineHeight(TextPaint paint) {
+		return paint.getFontMetricsInt(null);
+	}
+
+	private static void drawTextLayout(Canvas canvas, StaticLayout layout, int centerX, int top) {
+		final int saveCount = canvas.save();
+		canvas.translate(centerX - layout.getWidth() / 2f, top);
+		layout.draw(canvas);
+		canvas.restoreToCount(saveCount);
+	}
+
+}
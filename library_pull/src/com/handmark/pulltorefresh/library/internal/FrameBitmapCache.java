@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright 2011, 2012 Chris Banes.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.handmark.pulltorefresh.library.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.graphics.Bitmap;
+
+/**
+ * 帧位图缓存
+ * A small LRU cache of decoded frames, bounded by the number of frames.
+ * Evicted bitmaps are kept in a pool so that they can be decoded into again.
+ * Only accessed from the UI thread.
+ * 
+ * @author Administrator
+ * 
+ */
+final class FrameBitmapCache {
+
+	private final LinkedHashMap<Integer, Bitmap> mFrames;
+	private final ArrayList<Bitmap> mReusable;
+	private final int mMaxFrames;
+
+	FrameBitmapCache(int maxFrames) {
+		mMaxFrames = Math.max(2, maxFrames);
+		mFrames = new LinkedHashMap<Integer, Bitmap>(mMaxFrames + 1, 1f, true);
+		mReusable = new ArrayList<Bitmap>(mMaxFrames);
+	}
+
+	Bitmap get(int frame) {
+		return mFrames.get(frame);
+	}
+
+	/**
+	 * Adds a decoded frame, evicting the least recently used frame which is
+	 * not currently displayed if the cache is full.
+	 * 
+	 * @param frame - Frame index
+	 * @param bitmap - Decoded frame
+	 * @param inUse - Bitmap which is currently being displayed
+	 */
+	void put(int frame, Bitmap bitmap, Bitmap inUse) {
+		final Bitmap previous = mFrames.put(frame, bitmap);
+		if (null != previous && previous != bitmap && previous != inUse) {
+			addReusable(previous);
+		}
+
+		if (mFrames.size() > mMaxFrames) {
+			Iterator<Map.Entry<Integer, Bitmap>> it = mFrames.entrySet().iterator();
+			while (it.hasNext()) {
+				Bitmap eldest = it.next().getValue();
+				if (eldest != inUse && eldest != bitmap) {
+					it.remove();
+					addReusable(eldest);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes a bitmap from the pool of evicted bitmaps, so that it can be
+	 * decoded into.
+	 * 
+	 * @param inUse - Bitmap which is currently being displayed, and so must
+	 *            not be returned
+	 * @return An evicted bitmap, or null if there isn't one
+	 */
+	Bitmap obtainReusable(Bitmap inUse) {
+		for (int i = mReusable.size() - 1; i >= 0; i--) {
+			if (mReusable.get(i) != inUse) {
+				return mReusable.remove(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Recycles every bitmap held by the cache. None of them can be drawn after
+	 * this call.
+	 */
+	void clear() {
+		for (Bitmap bitmap : mFrames.values()) {
+			bitmap.recycle();
+		}
+		for (Bitmap bitmap : mReusable) {
+			bitmap.recycle();
+		}
+		mFrames.clear();
+		mReusable.clear();
+	}
+
+	private void addReusable(Bitmap bitmap) {
+		if (mReusable.size() < mMaxFrames && bitmap.isMutable()) {
+			mReusable.add(bitmap);
+		} else {
+			bitmap.recycle();
+		}
+	}
+
+}
@@ -17,10 +17,8 @@ package com.handmark.pulltorefresh.library.internal;
 
 import android.content.Context;
 import android.content.res.TypedArray;
-import android.graphics.Matrix;
-import android.graphics.drawable.AnimationDrawable;
 import android.graphics.drawable.Drawable;
-import android.widget.ImageView.ScaleType;
+import android.view.View;
 
 import com.handmark.pulltorefresh.library.PullToRefreshBase.Mode;
 import com.handmark.pulltorefresh.library.PullToRefreshBase.Orientation;
@@ -28,87 +26,69 @@ import com.handmark.pulltorefresh.library.R;
 
 /**
  * 帧动画 加载器
+ * While pulling, the pull progress selects the frame to show. While
+ * refreshing, the frames are played using the durations from the
+ * <code>animation-list</code>, but only while the layout is actually visible.
  * @author Administrator
  *
  */
 public class FrameLoadingLayout extends LoadingLayout {
-	
 
-	static final int ROTATION_ANIMATION_DURATION = 100;
+	private final FrameSequence mFrameSequence;
 
-	//private final Animation mFrameAnimation;
-	
-	private AnimationDrawable mFrAnimationDrawable;
-	
-	
-	private final Matrix mHeaderImageMatrix;
+	private int mCurrentFrame = 0;
 
-	private float mRotationPivotX, mRotationPivotY;
+	private boolean mRefreshing = false;
+	private boolean mPlaying = false;
 
-	private final boolean mRotateDrawableWhilePulling;
+	private final Runnable mNextFrameRunnable = new Runnable() {
+		@Override
+		public void run() {
+			mPlaying = false;
+			showFrame((mCurrentFrame + 1) % mFrameSequence.getFrameCount());
+			updatePlayback();
+		}
+	};
 
 	public FrameLoadingLayout(Context context, Mode mode, Orientation scrollDirection, TypedArray attrs) {
 		super(context, mode, scrollDirection, attrs);
 
-		mRotateDrawableWhilePulling = attrs.getBoolean(R.styleable.PullToRefresh_ptrRotateDrawableWhilePulling, true);
-
-		mHeaderImage.setScaleType(ScaleType.MATRIX);
-		mHeaderImageMatrix = new Matrix();
-		mHeaderImage.setImageMatrix(mHeaderImageMatrix);
+		mFrameSequence = FrameSequence.get(getResources(), R.anim.fram_an);
+		mHeaderImage.setImageDrawable(mFrameSequence.newLevelListDrawable(getResources()));
+	}
 
-		mHeaderImage.setImageResource(R.anim.fram_an);
-		mFrAnimationDrawable = (AnimationDrawable) mHeaderImage.getDrawable();
-		
+	/**
+	 * The frames come from the sequence, so custom loading drawables are
+	 * ignored rather than replacing its level list.
+	 */
+	@Override
+	protected boolean usesLoadingDrawable() {
+		return false;
 	}
 
 	public void onLoadingDrawableSet(Drawable imageDrawable) {
-		if (null != imageDrawable) {
-			mRotationPivotX = Math.round(imageDrawable.getIntrinsicWidth() / 2f);
-			mRotationPivotY = Math.round(imageDrawable.getIntrinsicHeight() / 2f);
-		}
-		if (mFrAnimationDrawable!=null) {
-			mFrAnimationDrawable.start();
-		};
-		
+		// NO-OP, never called as usesLoadingDrawable() returns false
 	}
 
 	protected void onPullImpl(float scaleOfLayout) {
-		float angle;
-		if (mRotateDrawableWhilePulling) {
-			//angle = scaleOfLayout * 90f;
-		} else {
-			//angle = Math.max(0f, Math.min(180f, scaleOfLayout * 360f - 180f));
+		if (!mRefreshing) {
+			showFrame(mFrameSequence.getFrameForProgress(scaleOfLayout));
 		}
-		if (mFrAnimationDrawable!=null) {
-			mFrAnimationDrawable.start();
-		};
-		
-		//mHeaderImageMatrix.setRotate(angle, mRotationPivotX, mRotationPivotY);
-		mHeaderImage.setImageMatrix(mHeaderImageMatrix);
 	}
 
 	@Override
 	protected void refreshingImpl() {
-		mFrAnimationDrawable.start();
-
+		mRefreshing = true;
+		updatePlayback();
 	}
 
 	@Override
 	protected void resetImpl() {
-		
-		if (mFrAnimationDrawable!=null) {
-			mFrAnimationDrawable.stop();
-		}
-	
-		mHeaderImage.clearAnimation();
-		
-		resetImageRotation();
-	}
-
-	private void resetImageRotation() {
-		if (null != mHeaderImageMatrix) {
-			mHeaderImageMatrix.reset();
-			mHeaderImage.setImageMatrix(mHeaderImageMatrix);
+		// Called from the super constructor, before our fields are ready
+		if (null != mFrameSequence) {
+			mRefreshing = false;
+			updatePlayback();
+			showFrame(0);
 		}
 	}
 
@@ -124,8 +104,60 @@ public class FrameLoadingLayout extends LoadingLayout {
 
 	@Override
 	protected int getDefaultDrawableResId() {
-		return 0;
-		//return R.drawable.default_ptr_rotate;
+		// Never loaded, as usesLoadingDrawable() returns false
+		return android.R.color.transparent;
+	}
+
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		updatePlayback();
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		updatePlayback();
+	}
+
+	@Override
+	protected void onVisibilityChanged(View changedView, int visibility) {
+		super.onVisibilityChanged(changedView, visibility);
+		updatePlayback();
+	}
+
+	@Override
+	protected void onWindowVisibilityChanged(int visibility) {
+		super.onWindowVisibilityChanged(visibility);
+		updatePlayback();
+	}
+
+	private void showFrame(int frame) {
+		if (frame != mCurrentFrame) {
+			mCurrentFrame = frame;
+			mHeaderImage.setImageLevel(frame);
+		}
+	}
+
+	/**
+	 * Starts or stops the playback so that it is only running while
+	 * refreshing and visible on screen.
+	 */
+	private void updatePlayback() {
+		if (null == mFrameSequence) {
+			return;
+		}
+
+		final boolean shouldPlay = mRefreshing && null != getWindowToken() && isShown()
+				&& mHeaderImage.getVisibility() == View.VISIBLE;
+
+		if (shouldPlay && !mPlaying) {
+			mPlaying = true;
+			postDelayed(mNextFrameRunnable, mFrameSequence.getDuration(mCurrentFrame));
+		} else if (!shouldPlay && mPlaying) {
+			mPlaying = false;
+			removeCallbacks(mNextFrameRunnable);
+		}
 	}
 
 }
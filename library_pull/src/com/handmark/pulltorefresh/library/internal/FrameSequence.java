@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright 2011, 2012 Chris Banes.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.handmark.pulltorefresh.library.internal;
+
+import java.io.IOException;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import android.content.res.Resources;
+import android.content.res.XmlResourceParser;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.LevelListDrawable;
+import android.util.SparseArray;
+
+/**
+ * 帧序列，帧在所有实例之间共享
+ * The frames and durations of an <code>animation-list</code> resource. Each
+ * resource is only parsed once. Only the frame resource IDs are read, so
+ * nothing is decoded until a frame is actually needed. Frames created through
+ * {@link #newLevelListDrawable(Resources)} are then shared between every
+ * layout using the sequence through their ConstantStates.
+ * 
+ * @author Administrator
+ * 
+ */
+final class FrameSequence {
+
+	private static final String ANDROID_NS = "http://schemas.android.com/apk/res/android";
+
+	private static final SparseArray<FrameSequence> sSequences = new SparseArray<FrameSequence>();
+
+	/**
+	 * 获取帧序列
+	 * 
+	 * @param res - Resources to load the sequence from
+	 * @param animResId - Resource ID of an <code>animation-list</code>
+	 * @return The shared sequence for the resource
+	 */
+	static synchronized FrameSequence get(Resources res, int animResId) {
+		FrameSequence sequence = sSequences.get(animResId);
+		if (null == sequence) {
+			sequence = parse(res, animResId);
+			sSequences.put(animResId, sequence);
+		}
+		return sequence;
+	}
+
+	private static FrameSequence parse(Resources res, int animResId) {
+		final XmlResourceParser parser = res.getXml(animResId);
+		int[] resIds = new int[16];
+		int[] durations = new int[16];
+		int count = 0;
+
+		try {
+			int type;
+			while ((type = parser.next()) != XmlPullParser.END_DOCUMENT) {
+				if (type != XmlPullParser.START_TAG || !"item".equals(parser.getName())) {
+					continue;
+				}
+
+				final int resId = parser.getAttributeResourceValue(ANDROID_NS, "drawable", 0);
+				if (resId == 0) {
+					throw new IllegalArgumentException("Frames must reference a drawable resource: " + animResId);
+				}
+				if (count == resIds.length) {
+					resIds = grow(resIds);
+					durations = grow(durations);
+				}
+				resIds[count] = resId;
+				durations[count] = parser.getAttributeIntValue(ANDROID_NS, "duration", 0);
+				count++;
+			}
+		} catch (XmlPullParserException e) {
+			throw parseFailure(animResId, e);
+		} catch (IOException e) {
+			throw parseFailure(animResId, e);
+		} finally {
+			parser.close();
+		}
+
+		if (count == 0) {
+			throw new IllegalArgumentException("Resource is not an animation-list: " + animResId);
+		}
+
+		final int[] frameResIds = new int[count];
+		final int[] frameDurations = new int[count];
+		System.arraycopy(resIds, 0, frameResIds, 0, count);
+		System.arraycopy(durations, 0, frameDurations, 0, count);
+		return new FrameSequence(frameResIds, frameDurations);
+	}
+
+	private static int[] grow(int[] array) {
+		final int[] grown = new int[array.length * 2];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	/**
+	 * IllegalArgumentException(String, Throwable) is only available from API
+	 * 9, so the cause is set separately
+	 */
+	private static IllegalArgumentException parseFailure(int animResId, Exception cause) {
+		final IllegalArgumentException e = new IllegalArgumentException("Could not parse animation-list: "
+				+ animResId);
+		e.initCause(cause);
+		return e;
+	}
+
+	private final int[] mFrameResIds;
+	private final int[] mDurations;
+	private final Drawable.ConstantState[] mFrames;
+
+	private FrameSequence(int[] frameResIds, int[] durations) {
+		mFrameResIds = frameResIds;
+		mDurations = durations;
+		mFrames = new Drawable.ConstantState[frameResIds.length];
+	}
+
+	int getFrameCount() {
+		return mFrames.length;
+	}
+
+	int getDuration(int frame) {
+		return mDurations[frame];
+	}
+
+	/**
+	 * @return Drawable resource ID of the frame
+	 */
+	int getFrameResId(int frame) {
+		return mFrameResIds[frame];
+	}
+
+	/**
+	 * Maps pull progress to a frame, so that pulling scrubs through the
+	 * sequence. Progress of 1 is one full pass through the frames.
+	 * 
+	 * @param progress - Pull progress, usually the scale of the layout
+	 * @return Frame index
+	 */
+	int getFrameForProgress(float progress) {
+		final int count = mFrames.length;
+		final int frame = (int) (Math.max(0f, progress) * count);
+		return frame % count;
+	}
+
+	/**
+	 * 创建一个帧选择器
+	 * Creates a Drawable which has each frame at the level matching its index,
+	 * so that frames can be changed with <code>setLevel()</code> without any
+	 * relayout. The frames share their bitmaps with every other instance.
+	 * 
+	 * @param res - Resources to create the Drawables with
+	 * @return New LevelListDrawable
+	 */
+	LevelListDrawable newLevelListDrawable(Resources res) {
+		LevelListDrawable drawable = new LevelListDrawable();
+		synchronized (mFrames) {
+			for (int i = 0, z = mFrames.length; i < z; i++) {
+				if (null == mFrames[i]) {
+					mFrames[i] = res.getDrawable(mFrameResIds[i]).getConstantState();
+				}
+				drawable.addLevel(i, i, mFrames[i].newDrawable(res));
+			}
+		}
+		drawable.setLevel(0);
+		return drawable;
+	}
+
+}
@@ -0,0 +1,476 @@
+/*******************************************************************************
+ * Copyright 2011, 2012 Chris Banes.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.handmark.pulltorefresh.library.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.drawable.Drawable;
+import android.os.Build.VERSION;
+import android.os.Build.VERSION_CODES;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.util.TypedValue;
+import android.view.View;
+
+import com.handmark.pulltorefresh.library.PullToRefreshBase.Mode;
+import com.handmark.pulltorefresh.library.PullToRefreshBase.Orientation;
+import com.handmark.pulltorefresh.library.R;
+
+/**
+ * 帧序列 加载器
+ * Plays the frames of an <code>animation-list</code> like
+ * {@link FrameLoadingLayout}, but never holds the whole sequence in memory.
+ * Frames are decoded on a background thread when they are needed, subsampled
+ * to the size they are displayed at, and kept in a small cache. Evicted
+ * bitmaps are decoded into again on Honeycomb and above. Everything is
+ * released when the layout is detached.
+ *
+ * @author Administrator
+ *
+ */
+public class FrameSequenceLoadingLayout extends LoadingLayout {
+
+	/**
+	 * The displayed frame, the next one and one being decoded
+	 */
+	static final int MAX_CACHED_FRAMES = 3;
+
+	/**
+	 * inBitmap only allows a different inSampleSize from KitKat
+	 */
+	private static final int SDK_KITKAT = 19;
+
+	private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+	private static final ExecutorService sDecodeExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable r) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+					r.run();
+				}
+			}, "PullToRefresh-FrameDecoder");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final FrameSequence mFrameSequence;
+	private final FrameBitmapCache mFrameCache;
+	private final FrameDrawable mFrameDrawable;
+	private final int mSampleSize;
+
+	private int mCurrentFrame = 0;
+	private int mDecodingFrame = -1;
+
+	/**
+	 * Incremented whenever the frames are released, so that decodes which
+	 * were already running are thrown away.
+	 */
+	private int mGeneration = 0;
+
+	private boolean mAttached = false;
+	private boolean mRefreshing = false;
+	private boolean mPlaying = false;
+
+	private final Runnable mNextFrameRunnable = new Runnable() {
+		@Override
+		public void run() {
+			mPlaying = false;
+			showFrame((mCurrentFrame + 1) % mFrameSequence.getFrameCount());
+			updatePlayback();
+		}
+	};
+
+	public FrameSequenceLoadingLayout(Context context, Mode mode, Orientation scrollDirection, TypedArray attrs) {
+		super(context, mode, scrollDirection, attrs);
+
+		final Resources res = getResources();
+		final int sequenceResId = attrs.getResourceId(R.styleable.PullToRefresh_ptrFrameSequence, R.anim.fram_an);
+		mFrameSequence = FrameSequence.get(res, sequenceResId);
+		mFrameCache = new FrameBitmapCache(MAX_CACHED_FRAMES);
+
+		// Work out the displayed size from the first frame, without decoding it
+		final TypedValue value = new TypedValue();
+		final BitmapFactory.Options bounds = new BitmapFactory.Options();
+		bounds.inJustDecodeBounds = true;
+		InputStream is = res.openRawResource(mFrameSequence.getFrameResId(0), value);
+		try {
+			BitmapFactory.decodeStream(is, null, bounds);
+		} finally {
+			closeQuietly(is);
+		}
+
+		float scale = 1f;
+		if (value.density != TypedValue.DENSITY_NONE) {
+			final int density = value.density == TypedValue.DENSITY_DEFAULT ? DisplayMetrics.DENSITY_DEFAULT
+					: value.density;
+			scale = res.getDisplayMetrics().densityDpi / (float) density;
+		}
+		final int maxSize = res.getDimensionPixelSize(R.dimen.header_footer_frame_max_size);
+		scale = Math.min(scale, maxSize / (float) Math.max(1, Math.max(bounds.outWidth, bounds.outHeight)));
+
+		final int width = Math.max(1, Math.round(bounds.outWidth * scale));
+		final int height = Math.max(1, Math.round(bounds.outHeight * scale));
+		mSampleSize = calculateSampleSize(bounds.outWidth, bounds.outHeight, width, height);
+
+		mFrameDrawable = new FrameDrawable(width, height);
+		mHeaderImage.setImageDrawable(mFrameDrawable);
+	}
+
+	/**
+	 * The frames come from the sequence, so custom loading drawables are
+	 * ignored rather than replacing the frame drawable.
+	 */
+	@Override
+	protected boolean usesLoadingDrawable() {
+		return false;
+	}
+
+	public void onLoadingDrawableSet(Drawable imageDrawable) {
+		// NO-OP, never called as usesLoadingDrawable() returns false
+	}
+
+	protected void onPullImpl(float scaleOfLayout) {
+		if (!mRefreshing) {
+			showFrame(mFrameSequence.getFrameForProgress(scaleOfLayout));
+		}
+	}
+
+	@Override
+	protected void refreshingImpl() {
+		mRefreshing = true;
+		updatePlayback();
+	}
+
+	@Override
+	protected void resetImpl() {
+		// Called from the super constructor, before our fields are ready
+		if (null != mFrameSequence) {
+			mRefreshing = false;
+			updatePlayback();
+			showFrame(0);
+		}
+	}
+
+	@Override
+	protected void pullToRefreshImpl() {
+		// NO-OP
+	}
+
+	@Override
+	protected void releaseToRefreshImpl() {
+		// NO-OP
+	}
+
+	@Override
+	protected int getDefaultDrawableResId() {
+		// Never loaded, as usesLoadingDrawable() returns false
+		return android.R.color.transparent;
+	}
+
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		mAttached = true;
+		decodeNextFrame();
+		updatePlayback();
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		mAttached = false;
+		updatePlayback();
+		releaseFrames();
+	}
+
+	@Override
+	protected void onVisibilityChanged(View changedView, int visibility) {
+		super.onVisibilityChanged(changedView, visibility);
+		updatePlayback();
+	}
+
+	@Override
+	protected void onWindowVisibilityChanged(int visibility) {
+		super.onWindowVisibilityChanged(visibility);
+		updatePlayback();
+	}
+
+	private void showFrame(int frame) {
+		if (frame == mCurrentFrame && null != mFrameDrawable.getBitmap()) {
+			return;
+		}
+
+		mCurrentFrame = frame;
+
+		// If the frame isn't ready, keep showing the previous one until it is
+		final Bitmap bitmap = mFrameCache.get(frame);
+		if (null != bitmap) {
+			mFrameDrawable.setBitmap(bitmap);
+		}
+		decodeNextFrame();
+	}
+
+	/**
+	 * Starts decoding the current frame if it isn't cached, otherwise the
+	 * following frame if we're playing. Only one frame is decoded at a time.
+	 */
+	private void decodeNextFrame() {
+		if (!mAttached || mDecodingFrame != -1) {
+			return;
+		}
+
+		int frame = mCurrentFrame;
+		if (null != mFrameCache.get(frame)) {
+			if (!mRefreshing) {
+				return;
+			}
+			frame = (frame + 1) % mFrameSequence.getFrameCount();
+			if (null != mFrameCache.get(frame)) {
+				return;
+			}
+		}
+
+		mDecodingFrame = frame;
+		sDecodeExecutor.execute(new DecodeTask(this, mGeneration, frame, mFrameSequence.getFrameResId(frame),
+				mFrameCache.obtainReusable(mFrameDrawable.getBitmap())));
+	}
+
+	void onFrameDecoded(int generation, int frame, Bitmap bitmap) {
+		if (generation != mGeneration) {
+			// Released while decoding
+			if (null != bitmap) {
+				bitmap.recycle();
+			}
+			return;
+		}
+
+		mDecodingFrame = -1;
+		if (null == bitmap) {
+			// Don't retry a frame which can't be decoded
+			return;
+		}
+
+		mFrameCache.put(frame, bitmap, mFrameDrawable.getBitmap());
+		if (frame == mCurrentFrame) {
+			mFrameDrawable.setBitmap(bitmap);
+		}
+		decodeNextFrame();
+	}
+
+	private void releaseFrames() {
+		mGeneration++;
+		mDecodingFrame = -1;
+		mFrameDrawable.setBitmap(null);
+		mFrameCache.clear();
+	}
+
+	/**
+	 * Starts or stops the playback so that it is only running while
+	 * refreshing and visible on screen.
+	 */
+	private void updatePlayback() {
+		if (null == mFrameSequence) {
+			return;
+		}
+
+		final boolean shouldPlay = mRefreshing && mAttached && isShown()
+				&& mHeaderImage.getVisibility() == View.VISIBLE;
+
+		if (shouldPlay && !mPlaying) {
+			mPlaying = true;
+			decodeNextFrame();
+			postDelayed(mNextFrameRunnable, mFrameSequence.getDuration(mCurrentFrame));
+		} else if (!shouldPlay && mPlaying) {
+			mPlaying = false;
+			removeCallbacks(mNextFrameRunnable);
+		}
+	}
+
+	static int calculateSampleSize(int width, int height, int reqWidth, int reqHeight) {
+		int sampleSize = 1;
+		while (width / (sampleSize * 2) >= reqWidth && height / (sampleSize * 2) >= reqHeight) {
+			sampleSize *= 2;
+		}
+		return sampleSize;
+	}
+
+	static Bitmap decodeFrame(Resources res, int resId, int sampleSize, Bitmap reusable) {
+		final BitmapFactory.Options opts = new BitmapFactory.Options();
+		opts.inSampleSize = sampleSize;
+
+		if (VERSION.SDK_INT >= VERSION_CODES.HONEYCOMB) {
+			opts.inMutable = true;
+			if (null != reusable && (sampleSize == 1 || VERSION.SDK_INT >= SDK_KITKAT)) {
+				opts.inBitmap = reusable;
+			}
+		}
+
+		try {
+			return decodeStream(res, resId, opts);
+		} catch (IllegalArgumentException e) {
+			if (VERSION.SDK_INT < VERSION_CODES.HONEYCOMB || null == opts.inBitmap) {
+				Log.w(LOG_TAG, "Could not decode frame: " + resId, e);
+				return null;
+			}
+		}
+
+		// The reusable bitmap doesn't fit this frame, so decode a new one
+		opts.inBitmap = null;
+		return decodeStream(res, resId, opts);
+	}
+
+	/**
+	 * @return The decoded frame, or null if there wasn't enough memory for it
+	 */
+	private static Bitmap decodeStream(Resources res, int resId, BitmapFactory.Options opts) {
+		final InputStream is = res.openRawResource(resId);
+		try {
+			return BitmapFactory.decodeStream(is, null, opts);
+		} catch (OutOfMemoryError e) {
+			Log.w(LOG_TAG, "Could not decode frame: " + resId, e);
+			return null;
+		} finally {
+			closeQuietly(is);
+		}
+	}
+
+	private static void closeQuietly(InputStream is) {
+		try {
+			is.close();
+		} catch (IOException e) {
+			// Ignore
+		}
+	}
+
+	private static class DecodeTask implements Runnable {
+
+		private final FrameSequenceLoadingLayout mLayout;
+		private final Resources mResources;
+		private final int mGeneration;
+		private final int mFrame;
+		private final int mResId;
+		private final int mSampleSize;
+		private final Bitmap mReusable;
+
+		DecodeTask(FrameSequenceLoadingLayout layout, int generation, int frame, int resId, Bitmap reusable) {
+			mLayout = layout;
+			mResources = layout.getResources();
+			mGeneration = generation;
+			mFrame = frame;
+			mResId = resId;
+			mSampleSize = layout.mSampleSize;
+			mReusable = reusable;
+		}
+
+		@Override
+		public void run() {
+			final Bitmap bitmap = decodeFrame(mResources, mResId, mSampleSize, mReusable);
+			if (null != mReusable && bitmap != mReusable) {
+				mReusable.recycle();
+			}
+
+			sMainHandler.post(new Runnable() {
+				@Override
+				public void run() {
+					mLayout.onFrameDecoded(mGeneration, mFrame, bitmap);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Draws the current frame scaled into its bounds. The intrinsic size is
+	 * the displayed size, not the size of the decoded bitmap.
+	 */
+	private static class FrameDrawable extends Drawable {
+
+		private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+		private final int mWidth, mHeight;
+
+		private Bitmap mBitmap;
+
+		FrameDrawable(int width, int height) {
+			mWidth = width;
+			mHeight = height;
+		}
+
+		Bitmap getBitmap() {
+			return mBitmap;
+		}
+
+		void setBitmap(Bitmap bitmap) {
+			if (mBitmap != bitmap) {
+				mBitmap = bitmap;
+				invalidateSelf();
+			}
+		}
+
+		@Override
+		public void draw(Canvas canvas) {
+			if (null != mBitmap && !mBitmap.isRecycled()) {
+				canvas.drawBitmap(mBitmap, null, getBounds(), mPaint);
+			}
+		}
+
+		@Override
+		public int getIntrinsicWidth() {
+			return mWidth;
+		}
+
+		@Override
+		public int getIntrinsicHeight() {
+			return mHeight;
+		}
+
+		@Override
+		public void setAlpha(int alpha) {
+			mPaint.setAlpha(alpha);
+			invalidateSelf();
+		}
+
+		@Override
+		public void setColorFilter(ColorFilter cf) {
+			mPaint.setColorFilter(cf);
+			invalidateSelf();
+		}
+
+		@Override
+		public int getOpacity() {
+			return PixelFormat.TRANSLUCENT;
+		}
+	}
+
+}
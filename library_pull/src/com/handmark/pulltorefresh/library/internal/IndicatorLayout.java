@@ -1,197 +0,0 @@
-/*******************************************************************************
- * Copyright 2011, 2012 Chris Banes.
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- *******************************************************************************/
-package com.handmark.pulltorefresh.library.internal;
-
-import android.annotation.SuppressLint;
-import android.content.Context;
-import android.graphics.Matrix;
-import android.graphics.drawable.Drawable;
-import android.view.View;
-import android.view.animation.Animation;
-import android.view.animation.Animation.AnimationListener;
-import android.view.animation.AnimationUtils;
-import android.view.animation.Interpolator;
-import android.view.animation.LinearInterpolator;
-import android.view.animation.RotateAnimation;
-import android.widget.FrameLayout;
-import android.widget.ImageView;
-import android.widget.ImageView.ScaleType;
-
-import com.handmark.pulltorefresh.library.PullToRefreshBase;
-import com.handmark.pulltorefresh.library.R;
-
-/**
- * 用来展示刷新效果的指示器
- * @author Administrator
- *
- */
-@SuppressLint("ViewConstructor")
-public class IndicatorLayout extends FrameLayout implements AnimationListener {
-
-	/**
-	 *默认 动画执行时间
-	 */
-	static final int DEFAULT_ROTATION_ANIMATION_DURATION = 150;
-
-	/**
-	 * 进入和退出动画
-	 */
-	private Animation mInAnim, mOutAnim;
-	/**
-	 * 动画图片
-	 */
-	private ImageView mArrowImageView;
-   /**
-    * 旋转和 恢复旋转动画
-    */
-	private final Animation mRotateAnimation, mResetRotateAnimation;
-
-	public IndicatorLayout(Context context, PullToRefreshBase.Mode mode) {
-		super(context);
-		/**
-		 * 动画的图片
-		 */
-		mArrowImageView = new ImageView(context);
-
-		Drawable arrowD = getResources().getDrawable(R.drawable.indicator_arrow);
-		mArrowImageView.setImageDrawable(arrowD);
-
-		final int padding = getResources().getDimensionPixelSize(R.dimen.indicator_internal_padding);
-		mArrowImageView.setPadding(padding, padding, padding, padding);
-		addView(mArrowImageView);
-
-		int inAnimResId, outAnimResId;
-		switch (mode) {
-			case PULL_FROM_END:
-				inAnimResId = R.anim.slide_in_from_bottom;
-				outAnimResId = R.anim.slide_out_to_bottom;
-				setBackgroundResource(R.drawable.indicator_bg_bottom);
-
-				// Rotate Arrow so it's pointing the correct way
-				mArrowImageView.setScaleType(ScaleType.MATRIX);
-				Matrix matrix = new Matrix();
-				matrix.setRotate(180f, arrowD.getIntrinsicWidth() / 2f, arrowD.getIntrinsicHeight() / 2f);
-				mArrowImageView.setImageMatrix(matrix);
-				break;
-			default:
-			case PULL_FROM_START:
-				inAnimResId = R.anim.slide_in_from_top;
-				outAnimResId = R.anim.slide_out_to_top;
-				setBackgroundResource(R.drawable.indicator_bg_top);
-				break;
-		}
-
-		//进入时的动画，从XML中加载
-		mInAnim = AnimationUtils.loadAnimation(context, inAnimResId);
-		mInAnim.setAnimationListener(this);
-        //退出时的动画  从XML中加载
-		mOutAnim = AnimationUtils.loadAnimation(context, outAnimResId);
-		mOutAnim.setAnimationListener(this);
-
-		final Interpolator interpolator = new LinearInterpolator();
-		
-		// 下拉时入的动画
-		mRotateAnimation = new RotateAnimation(0, -180, Animation.RELATIVE_TO_SELF, 0.5f, Animation.RELATIVE_TO_SELF,
-				0.5f);
-		mRotateAnimation.setInterpolator(interpolator);
-		mRotateAnimation.setDuration(DEFAULT_ROTATION_ANIMATION_DURATION);
-		mRotateAnimation.setFillAfter(true);
-
-		
-		// 释放控件时的动画
-		mResetRotateAnimation = new RotateAnimation(-180, 0, Animation.RELATIVE_TO_SELF, 0.5f,
-				Animation.RELATIVE_TO_SELF, 0.5f);
-		mResetRotateAnimation.setInterpolator(interpolator);
-		mResetRotateAnimation.setDuration(DEFAULT_ROTATION_ANIMATION_DURATION);
-		mResetRotateAnimation.setFillAfter(true);
-
-	}
-
-	/**
-	 * 是否可见
-	 * @return
-	 */
-	public final boolean isVisible() {
-		
-		Animation currentAnim = getAnimation();
-		if (null != currentAnim) {
-			return mInAnim == currentAnim;
-		}
-
-		return getVisibility() == View.VISIBLE;
-	}
-
-	/**
-	 * 隐藏动画
-	 */
-	public void hide() {
-		
-		startAnimation(mOutAnim);
-	}
-
-	/**
-	 * 展示动画
-	 */
-	public void show() {
-		
-		mArrowImageView.clearAnimation();
-		startAnimation(mInAnim);
-	}
-
-	/** (non-Javadoc)
-	 * 动画结束时
-	 * @see android.view.animation.Animation.AnimationListener#onAnimationEnd(android.view.animation.Animation)
-	 */
-	@Override
-	public void onAnimationEnd(Animation animation) {
-		
-		if (animation == mOutAnim) {
-			mArrowImageView.clearAnimation();
-			setVisibility(View.GONE);
-		} else if (animation == mInAnim) {
-			setVisibility(View.VISIBLE);
-		}
-
-		clearAnimation();
-	}
-
-	@Override
-	public void onAnimationRepeat(Animation animation) {
-		// NO-OP
-	}
-
-	@Override
-	public void onAnimationStart(Animation animation) {
-		setVisibility(View.VISIBLE);
-	}
-
-	/**
-	 * 释放时的动画
-	 */
-	public void releaseToRefresh() {
-		
-		mArrowImageView.startAnimation(mRotateAnimation);
-	}
-
-	/**
-	 * 加载时的动画
-	 */
-	public void pullToRefresh() {
-		
-		mArrowImageView.startAnimation(mResetRotateAnimation);
-	}
-
-}
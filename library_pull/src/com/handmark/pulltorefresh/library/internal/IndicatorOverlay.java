@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright 2011, 2012 Chris Banes.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.handmark.pulltorefresh.library.internal;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
+
+import com.handmark.pulltorefresh.library.PullToRefreshBase;
+import com.handmark.pulltorefresh.library.R;
+
+/**
+ * 用来展示刷新效果的指示器
+ * An indicator which is drawn over the Refreshable View by its host, rather
+ * than being a View itself. Showing, hiding and rotating the arrow are all
+ * calculated from the time they started when drawing, so no Animation objects
+ * are needed.
+ *
+ * @author Administrator
+ *
+ */
+public class IndicatorOverlay {
+
+	/**
+	 *默认 动画执行时间
+	 */
+	static final int DEFAULT_ROTATION_ANIMATION_DURATION = 150;
+
+	/**
+	 * Interpolators hold no state, so they are shared by every indicator
+	 */
+	private static final Interpolator SLIDE_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+	private static final Interpolator ROTATION_INTERPOLATOR = new LinearInterpolator();
+
+	private static final long NOT_ANIMATING = -1;
+
+	private final View mHost;
+	private final boolean mFromEnd;
+
+	private final Drawable mBackground;
+	private final Drawable mArrow;
+
+	private final int mWidth, mHeight;
+	private final int mRightMargin;
+	private final int mSlideDuration;
+
+	private boolean mShown = true;
+	private long mSlideStartTime = NOT_ANIMATING;
+
+	private float mArrowFromDegrees, mArrowToDegrees;
+	private long mArrowStartTime = NOT_ANIMATING;
+
+	/**
+	 * @param host - View which draws the indicator, and is invalidated while
+	 *            it animates
+	 * @param mode - Either {@link PullToRefreshBase.Mode#PULL_FROM_START} or
+	 *            {@link PullToRefreshBase.Mode#PULL_FROM_END}
+	 */
+	public IndicatorOverlay(View host, PullToRefreshBase.Mode mode) {
+		mHost = host;
+		mFromEnd = mode == PullToRefreshBase.Mode.PULL_FROM_END;
+
+		final Resources res = host.getResources();
+		mBackground = res.getDrawable(mFromEnd ? R.drawable.indicator_bg_bottom : R.drawable.indicator_bg_top);
+		mArrow = res.getDrawable(R.drawable.indicator_arrow);
+
+		final int padding = res.getDimensionPixelSize(R.dimen.indicator_internal_padding);
+		final int arrowWidth = mArrow.getIntrinsicWidth();
+		final int arrowHeight = mArrow.getIntrinsicHeight();
+		mWidth = arrowWidth + 2 * padding;
+		mHeight = arrowHeight + 2 * padding;
+
+		mBackground.setBounds(0, 0, mWidth, mHeight);
+		mArrow.setBounds(padding, padding, padding + arrowWidth, padding + arrowHeight);
+
+		mRightMargin = res.getDimensionPixelSize(R.dimen.indicator_right_padding);
+		mSlideDuration = res.getInteger(android.R.integer.config_longAnimTime);
+	}
+
+	/**
+	 * 是否可见
+	 * @return true if the indicator is shown, or is being shown
+	 */
+	public final boolean isVisible() {
+		return mShown;
+	}
+
+	/**
+	 * 隐藏动画
+	 */
+	public void hide() {
+		if (mShown) {
+			mShown = false;
+			startSlide();
+		}
+	}
+
+	/**
+	 * 展示动画
+	 */
+	public void show() {
+		if (!mShown) {
+			mShown = true;
+			mArrowStartTime = NOT_ANIMATING;
+			mArrowFromDegrees = mArrowToDegrees = 0f;
+			startSlide();
+		}
+	}
+
+	/**
+	 * Shows the indicator straight away, as it is when first created.
+	 */
+	public void reset() {
+		mShown = true;
+		mSlideStartTime = NOT_ANIMATING;
+		mArrowStartTime = NOT_ANIMATING;
+		mArrowFromDegrees = mArrowToDegrees = 0f;
+	}
+
+	/**
+	 * 释放时的动画
+	 */
+	public void releaseToRefresh() {
+		rotateArrow(0f, -180f);
+	}
+
+	/**
+	 * 加载时的动画
+	 */
+	public void pullToRefresh() {
+		rotateArrow(-180f, 0f);
+	}
+
+	/**
+	 * 绘制
+	 * Draws the indicator in the top or bottom right corner of the host.
+	 *
+	 * @param canvas - Canvas of the host
+	 * @param width - Width of the host
+	 * @param height - Height of the host
+	 */
+	public void draw(Canvas canvas, int width, int height) {
+		if (!mShown && mSlideStartTime == NOT_ANIMATING) {
+			return;
+		}
+
+		final long now = AnimationUtils.currentAnimationTimeMillis();
+		boolean animating = false;
+
+		// How far the indicator has slid out, as a fraction of the height
+		float slideOut = 0f;
+		if (mSlideStartTime != NOT_ANIMATING) {
+			final float progress = (now - mSlideStartTime) / (float) mSlideDuration;
+			if (progress >= 1f) {
+				mSlideStartTime = NOT_ANIMATING;
+				if (!mShown) {
+					return;
+				}
+			} else {
+				final float interpolated = SLIDE_INTERPOLATOR.getInterpolation(Math.max(0f, progress));
+				slideOut = mShown ? 1f - interpolated : interpolated;
+				animating = true;
+			}
+		}
+
+		float degrees = mArrowToDegrees;
+		if (mArrowStartTime != NOT_ANIMATING) {
+			final float progress = (now - mArrowStartTime) / (float) DEFAULT_ROTATION_ANIMATION_DURATION;
+			if (progress >= 1f) {
+				mArrowStartTime = NOT_ANIMATING;
+			} else {
+				final float interpolated = ROTATION_INTERPOLATOR.getInterpolation(Math.max(0f, progress));
+				degrees = mArrowFromDegrees + (mArrowToDegrees - mArrowFromDegrees) * interpolated;
+				animating = true;
+			}
+		}
+
+		final float left = width - mRightMargin - mWidth;
+		final float top = mFromEnd ? height - mHeight + slideOut * height : -slideOut * height;
+
+		final int saveCount = canvas.save();
+		canvas.translate(left, top);
+		mBackground.draw(canvas);
+
+		// The end indicator's arrow points the other way
+		canvas.rotate(mFromEnd ? degrees + 180f : degrees, mWidth / 2f, mHeight / 2f);
+		mArrow.draw(canvas);
+		canvas.restoreToCount(saveCount);
+
+		if (animating) {
+			ViewCompat.postInvalidateOnAnimation(mHost);
+		}
+	}
+
+	private void startSlide() {
+		mSlideStartTime = AnimationUtils.currentAnimationTimeMillis();
+		mHost.invalidate();
+	}
+
+	private void rotateArrow(float fromDegrees, float toDegrees) {
+		mArrowFromDegrees = fromDegrees;
+		mArrowToDegrees = toDegrees;
+		mArrowStartTime = AnimationUtils.currentAnimationTimeMillis();
+		mHost.invalidate();
+	}
+
+}
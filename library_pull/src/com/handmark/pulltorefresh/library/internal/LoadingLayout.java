@@ -52,7 +52,7 @@ public abstract class LoadingLayout extends FrameLayout implements ILoadingLayou
 
 	static final Interpolator ANIMATION_INTERPOLATOR = new LinearInterpolator();
 
-	private FrameLayout mInnerLayout;
+	private final FrameLayout mInnerLayout;
 
 	protected final ImageView mHeaderImage;
 	protected final ProgressBar mHeaderProgress;
@@ -65,36 +65,60 @@ public abstract class LoadingLayout extends FrameLayout implements ILoadingLayou
 	protected final Mode mMode;
 	protected final Orientation mScrollDirection;
 
-	private CharSequence mPullLabel;
-	private CharSequence mRefreshingLabel;
-	private CharSequence mReleaseLabel;
+	CharSequence mPullLabel;
+	CharSequence mRefreshingLabel;
+	CharSequence mReleaseLabel;
 
 	public LoadingLayout(Context context, final Mode mode, final Orientation scrollDirection, TypedArray attrs) {
+		this(context, mode, scrollDirection, attrs, true);
+	}
+
+	/**
+	 * 构造
+	 * 
+	 * @param inflateViews - false if the derivative class draws everything
+	 *            itself. In that case no child Views are created, and
+	 *            {@link #mHeaderImage} and {@link #mHeaderProgress} are null.
+	 */
+	protected LoadingLayout(Context context, final Mode mode, final Orientation scrollDirection,
+			TypedArray attrs, boolean inflateViews) {
 		super(context);
 		mMode = mode;
 		mScrollDirection = scrollDirection;
 
-		switch (scrollDirection) {
-			case HORIZONTAL:
-				LayoutInflater.from(context).inflate(R.layout.pull_to_refresh_header_horizontal, this);
-				break;
-			case VERTICAL:
-			default:
-				LayoutInflater.from(context).inflate(R.layout.pull_to_refresh_header_vertical, this);
-				break;
-		}
+		if (inflateViews) {
+			switch (scrollDirection) {
+				case HORIZONTAL:
+					LayoutInflater.from(context).inflate(R.layout.pull_to_refresh_header_horizontal, this);
+					break;
+				case VERTICAL:
+				default:
+					LayoutInflater.from(context).inflate(R.layout.pull_to_refresh_header_vertical, this);
+					break;
+			}
 
-		mInnerLayout = (FrameLayout) findViewById(R.id.fl_inner);
-		mHeaderText = (TextView) mInnerLayout.findViewById(R.id.pull_to_refresh_text);
-		mHeaderProgress = (ProgressBar) mInnerLayout.findViewById(R.id.pull_to_refresh_progress);
-		mSubHeaderText = (TextView) mInnerLayout.findViewById(R.id.pull_to_refresh_sub_text);
-		mHeaderImage = (ImageView) mInnerLayout.findViewById(R.id.pull_to_refresh_image);
+			mInnerLayout = (FrameLayout) findViewById(R.id.fl_inner);
+			mHeaderText = (TextView) mInnerLayout.findViewById(R.id.pull_to_refresh_text);
+			mHeaderProgress = (ProgressBar) mInnerLayout.findViewById(R.id.pull_to_refresh_progress);
+			mSubHeaderText = (TextView) mInnerLayout.findViewById(R.id.pull_to_refresh_sub_text);
+			mHeaderImage = (ImageView) mInnerLayout.findViewById(R.id.pull_to_refresh_image);
 
-		FrameLayout.LayoutParams lp = (FrameLayout.LayoutParams) mInnerLayout.getLayoutParams();
+			FrameLayout.LayoutParams lp = (FrameLayout.LayoutParams) mInnerLayout.getLayoutParams();
+			if (mode == Mode.PULL_FROM_END) {
+				lp.gravity = scrollDirection == Orientation.VERTICAL ? Gravity.TOP : Gravity.LEFT;
+			} else {
+				lp.gravity = scrollDirection == Orientation.VERTICAL ? Gravity.BOTTOM : Gravity.RIGHT;
+			}
+		} else {
+			mInnerLayout = null;
+			mHeaderText = null;
+			mHeaderProgress = null;
+			mSubHeaderText = null;
+			mHeaderImage = null;
+		}
 
 		switch (mode) {
 			case PULL_FROM_END:
-				lp.gravity = scrollDirection == Orientation.VERTICAL ? Gravity.TOP : Gravity.LEFT;
 
 				// Load in labels
 				mPullLabel = context.getString(R.string.pull_to_refresh_from_bottom_pull_label);
@@ -104,8 +128,6 @@ public abstract class LoadingLayout extends FrameLayout implements ILoadingLayou
 
 			case PULL_FROM_START:
 			default:
-				lp.gravity = scrollDirection == Orientation.VERTICAL ? Gravity.BOTTOM : Gravity.RIGHT;
-
 				// Load in labels
 				mPullLabel = context.getString(R.string.pull_to_refresh_pull_label);
 				mRefreshingLabel = context.getString(R.string.pull_to_refresh_refreshing_label);
@@ -145,43 +167,46 @@ public abstract class LoadingLayout extends FrameLayout implements ILoadingLayou
 			}
 		}
 
-		// Try and get defined drawable from Attrs
-		Drawable imageDrawable = null;
-		if (attrs.hasValue(R.styleable.PullToRefresh_ptrDrawable)) {
-			imageDrawable = attrs.getDrawable(R.styleable.PullToRefresh_ptrDrawable);
-		}
+		// Layouts which show their own frames skip loading a drawable at all
+		if (usesLoadingDrawable()) {
+			// Try and get defined drawable from Attrs
+			Drawable imageDrawable = null;
+			if (attrs.hasValue(R.styleable.PullToRefresh_ptrDrawable)) {
+				imageDrawable = attrs.getDrawable(R.styleable.PullToRefresh_ptrDrawable);
+			}
 
-		// Check Specific Drawable from Attrs, these overrite the generic
-		// drawable attr above
-		switch (mode) {
-			case PULL_FROM_START:
-			default:
-				if (attrs.hasValue(R.styleable.PullToRefresh_ptrDrawableStart)) {
-					imageDrawable = attrs.getDrawable(R.styleable.PullToRefresh_ptrDrawableStart);
-				} else if (attrs.hasValue(R.styleable.PullToRefresh_ptrDrawableTop)) {
-					Utils.warnDeprecation("ptrDrawableTop", "ptrDrawableStart");
-					imageDrawable = attrs.getDrawable(R.styleable.PullToRefresh_ptrDrawableTop);
-				}
-				break;
+			// Check Specific Drawable from Attrs, these overrite the generic
+			// drawable attr above
+			switch (mode) {
+				case PULL_FROM_START:
+				default:
+					if (attrs.hasValue(R.styleable.PullToRefresh_ptrDrawableStart)) {
+						imageDrawable = attrs.getDrawable(R.styleable.PullToRefresh_ptrDrawableStart);
+					} else if (attrs.hasValue(R.styleable.PullToRefresh_ptrDrawableTop)) {
+						Utils.warnDeprecation("ptrDrawableTop", "ptrDrawableStart");
+						imageDrawable = attrs.getDrawable(R.styleable.PullToRefresh_ptrDrawableTop);
+					}
+					break;
+
+				case PULL_FROM_END:
+					if (attrs.hasValue(R.styleable.PullToRefresh_ptrDrawableEnd)) {
+						imageDrawable = attrs.getDrawable(R.styleable.PullToRefresh_ptrDrawableEnd);
+					} else if (attrs.hasValue(R.styleable.PullToRefresh_ptrDrawableBottom)) {
+						Utils.warnDeprecation("ptrDrawableBottom", "ptrDrawableEnd");
+						imageDrawable = attrs.getDrawable(R.styleable.PullToRefresh_ptrDrawableBottom);
+					}
+					break;
+			}
 
-			case PULL_FROM_END:
-				if (attrs.hasValue(R.styleable.PullToRefresh_ptrDrawableEnd)) {
-					imageDrawable = attrs.getDrawable(R.styleable.PullToRefresh_ptrDrawableEnd);
-				} else if (attrs.hasValue(R.styleable.PullToRefresh_ptrDrawableBottom)) {
-					Utils.warnDeprecation("ptrDrawableBottom", "ptrDrawableEnd");
-					imageDrawable = attrs.getDrawable(R.styleable.PullToRefresh_ptrDrawableBottom);
-				}
-				break;
-		}
+			// If we don't have a user defined drawable, load the default
+			if (null == imageDrawable) {
+				imageDrawable = context.getResources().getDrawable(getDefaultDrawableResId());
+			}
 
-		// If we don't have a user defined drawable, load the default
-		if (null == imageDrawable) {
-			imageDrawable = context.getResources().getDrawable(getDefaultDrawableResId());
+			// Set Drawable, and save width/height
+			setLoadingDrawable(imageDrawable);
 		}
 
-		// Set Drawable, and save width/height
-		setLoadingDrawable(imageDrawable);
-
 		reset();
 	}
 
@@ -197,7 +222,28 @@ public abstract class LoadingLayout extends FrameLayout implements ILoadingLayou
 		requestLayout();
 	}
 
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+
+		// Layouts without child Views would wrap to nothing, so wrap to the
+		// drawn content instead
+		if (null == mInnerLayout) {
+			if (mScrollDirection == Orientation.HORIZONTAL) {
+				if (MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.EXACTLY) {
+					setMeasuredDimension(resolveSize(getDrawnContentSize(), widthMeasureSpec), getMeasuredHeight());
+				}
+			} else if (MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.EXACTLY) {
+				setMeasuredDimension(getMeasuredWidth(), resolveSize(getDrawnContentSize(), heightMeasureSpec));
+			}
+		}
+	}
+
 	public final int getContentSize() {
+		if (null == mInnerLayout) {
+			return getDrawnContentSize();
+		}
+
 		switch (mScrollDirection) {
 			case HORIZONTAL:
 				return mInnerLayout.getWidth();
@@ -208,6 +254,11 @@ public abstract class LoadingLayout extends FrameLayout implements ILoadingLayou
 	}
 
 	public final void hideAllViews() {
+		if (null == mInnerLayout) {
+			onDrawnContentVisibilityChanged(false);
+			return;
+		}
+
 		if (View.VISIBLE == mHeaderText.getVisibility()) {
 			mHeaderText.setVisibility(View.INVISIBLE);
 		}
@@ -267,7 +318,9 @@ public abstract class LoadingLayout extends FrameLayout implements ILoadingLayou
 		if (null != mHeaderText) {
 			mHeaderText.setText(mPullLabel);
 		}
-		mHeaderImage.setVisibility(View.VISIBLE);
+		if (null != mHeaderImage) {
+			mHeaderImage.setVisibility(View.VISIBLE);
+		}
 
 		if (mUseIntrinsicAnimation) {
 			((AnimationDrawable) mHeaderImage.getDrawable()).stop();
@@ -291,9 +344,17 @@ public abstract class LoadingLayout extends FrameLayout implements ILoadingLayou
 	}
 
 	public final void setLoadingDrawable(Drawable imageDrawable) {
-		// Set Drawable
-		mHeaderImage.setImageDrawable(imageDrawable);
-		mUseIntrinsicAnimation = (imageDrawable instanceof AnimationDrawable);
+		// Ignored by layouts which show their own frames, so that their image
+		// isn't replaced
+		if (!usesLoadingDrawable()) {
+			return;
+		}
+
+		// Set Drawable. Self drawn layouts handle it in the callback
+		if (null != mHeaderImage) {
+			mHeaderImage.setImageDrawable(imageDrawable);
+			mUseIntrinsicAnimation = (imageDrawable instanceof AnimationDrawable);
+		}
 
 		// Now call the callback
 		onLoadingDrawableSet(imageDrawable);
@@ -313,10 +374,17 @@ public abstract class LoadingLayout extends FrameLayout implements ILoadingLayou
 
 	@Override
 	public void setTextTypeface(Typeface tf) {
-		mHeaderText.setTypeface(tf);
+		if (null != mHeaderText) {
+			mHeaderText.setTypeface(tf);
+		}
 	}
 
 	public final void showInvisibleViews() {
+		if (null == mInnerLayout) {
+			onDrawnContentVisibilityChanged(true);
+			return;
+		}
+
 		if (View.INVISIBLE == mHeaderText.getVisibility()) {
 			mHeaderText.setVisibility(View.VISIBLE);
 		}
@@ -337,6 +405,36 @@ public abstract class LoadingLayout extends FrameLayout implements ILoadingLayou
 
 	protected abstract int getDefaultDrawableResId();
 
+	/**
+	 * Layouts which show their own frames in the header image return false.
+	 * The default drawable is then never loaded, and
+	 * {@link #setLoadingDrawable(Drawable)} is ignored. Called from the
+	 * constructor, so it must not depend on fields.
+	 * 
+	 * @return true if the layout shows the loading drawable
+	 */
+	protected boolean usesLoadingDrawable() {
+		return true;
+	}
+
+	/**
+	 * Only called on layouts created without child Views.
+	 * 
+	 * @return Size of the drawn content in the scroll direction
+	 */
+	protected int getDrawnContentSize() {
+		return 0;
+	}
+
+	/**
+	 * Only called on layouts created without child Views, instead of hiding or
+	 * showing the child Views.
+	 * 
+	 * @param visible - Whether the drawn content should be visible
+	 */
+	protected void onDrawnContentVisibilityChanged(boolean visible) {
+	}
+
 	protected abstract void onLoadingDrawableSet(Drawable imageDrawable);
 
 	protected abstract void onPullImpl(float scaleOfLayout);
@@ -32,6 +32,14 @@ public class ViewCompat {
 		}
 	}
 
+	public static void postInvalidateOnAnimation(View view) {
+		if (VERSION.SDK_INT >= VERSION_CODES.JELLY_BEAN) {
+			SDK16.postInvalidateOnAnimation(view);
+		} else {
+			view.postInvalidateDelayed(16);
+		}
+	}
+
 	public static void setBackground(View view, Drawable background) {
 		if (VERSION.SDK_INT >= VERSION_CODES.JELLY_BEAN) {
 			SDK16.setBackground(view, background);
@@ -61,6 +69,10 @@ public class ViewCompat {
 			view.postOnAnimation(runnable);
 		}
 
+		public static void postInvalidateOnAnimation(View view) {
+			view.postInvalidateOnAnimation();
+		}
+
 		public static void setBackground(View view, Drawable background) {
 			view.setBackground(background);
 		}